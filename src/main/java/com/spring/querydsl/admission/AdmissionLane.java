@@ -0,0 +1,71 @@
+package com.spring.querydsl.admission;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 한 SearchShape의 동시 실행 수와 대기 수를 제한한다. 대기열이 가득 차면 기다리지 않고 바로 거절한다.
+ */
+class AdmissionLane {
+
+    private final SearchShape shape;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final long queueTimeoutNanos;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    AdmissionLane(SearchShape shape, int maxConcurrent, int maxQueued, Duration queueTimeout) {
+        this.shape = shape;
+        this.maxConcurrent = Math.max(maxConcurrent, 1);
+        this.permits = new Semaphore(this.maxConcurrent);
+        this.maxQueued = Math.max(maxQueued, 0);
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+    }
+
+    void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueued) {
+            waiting.decrementAndGet();
+            throw reject("queue full");
+        }
+        try {
+            if (!permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw reject("queue timeout");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("interrupted");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    int getWaiting() {
+        return waiting.get();
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+
+    private SearchRejectedException reject(String reason) {
+        rejected.increment();
+        return new SearchRejectedException(shape + " search rejected: " + reason);
+    }
+}
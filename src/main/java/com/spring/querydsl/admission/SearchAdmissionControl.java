@@ -0,0 +1,177 @@
+package com.spring.querydsl.admission;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.hibernate.Session;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SearchShape별로 동시 실행 수, 대기열, 쿼리 타임아웃을 따로 두어 비싼 조회가 커넥션 풀을 차지해도
+ * 단건 조회는 자기 몫의 슬롯으로 바로 실행되게 한다.
+ * <p>
+ * 조회는 shape별 타임아웃을 가진 readOnly 트랜잭션 안에서 실행되며, 공유 EntityManager가 만든 쿼리에
+ * 남은 트랜잭션 시간이 JDBC 쿼리 타임아웃으로 걸린다.
+ * <p>
+ * shape별 실행/대기 수와 거절 수는 member.search.admission.* 지표(태그 shape)로 노출한다.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(SearchAdmissionProperties.class)
+public class SearchAdmissionControl implements MeterBinder {
+
+    private final EntityManager em;
+    private final Map<SearchShape, AdmissionLane> lanes = new EnumMap<>(SearchShape.class);
+    private final Map<SearchShape, TransactionTemplate> transactions = new EnumMap<>(SearchShape.class);
+    // submit 용, 슬롯 수만큼만 동시에 실행되므로 모든 shape의 슬롯 합으로 충분
+    private final ExecutorService executor;
+
+    public SearchAdmissionControl(EntityManager em, PlatformTransactionManager transactionManager,
+            SearchAdmissionProperties properties) {
+        this.em = em;
+        int threads = 0;
+        for (SearchShape shape : SearchShape.values()) {
+            SearchAdmissionProperties.Limit limit = properties.limit(shape);
+            lanes.put(shape, new AdmissionLane(shape, limit.getMaxConcurrent(), limit.getMaxQueued(),
+                    limit.getQueueTimeout()));
+
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            transaction.setTimeout(seconds(limit.getStatementTimeout()));
+            transactions.put(shape, transaction);
+            threads += Math.max(limit.getMaxConcurrent(), 1);
+        }
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "member-search-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 현재 스레드에서 실행한다. 슬롯을 얻지 못하거나 타임아웃이 나면 SearchRejectedException.
+     */
+    public <T> T call(SearchShape shape, Supplier<T> search) {
+        AdmissionLane lane = lanes.get(shape);
+        lane.acquire();
+        try {
+            return transactions.get(shape).execute(status -> search.get());
+        } catch (QueryTimeoutException | TransactionTimedOutException e) {
+            throw new SearchRejectedException(shape + " search timed out", e);
+        } finally {
+            lane.release();
+        }
+    }
+
+    /**
+     * 슬롯은 호출 스레드에서 얻고(거절은 즉시 throw) 조회는 별도 스레드에서 실행한다.
+     * 반환된 future를 cancel 하면 실행 중인 쿼리도 취소된다.
+     */
+    public <T> CompletableFuture<T> submit(SearchShape shape, Supplier<T> search) {
+        AdmissionLane lane = lanes.get(shape);
+        lane.acquire();
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AtomicReference<Session> running = new AtomicReference<>();
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                cancelQuery(running.get());
+            }
+        });
+
+        try {
+            executor.execute(() -> {
+                try {
+                    T result = transactions.get(shape).execute(status -> {
+                        running.set(em.unwrap(Session.class));
+                        try {
+                            // 세션을 등록하기 전에 취소됐으면 쿼리를 시작하지 않는다
+                            if (future.isCancelled()) {
+                                throw new CancellationException();
+                            }
+                            return search.get();
+                        } finally {
+                            running.set(null);
+                        }
+                    });
+                    future.complete(result);
+                } catch (QueryTimeoutException | TransactionTimedOutException e) {
+                    future.completeExceptionally(new SearchRejectedException(shape + " search timed out", e));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    lane.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            lane.release();
+            throw new SearchRejectedException(shape + " search rejected: shutting down", e);
+        }
+        return future;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lanes.forEach((shape, lane) -> {
+            String tag = shape.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("member.search.admission.active", lane, AdmissionLane::getActive)
+                    .tag("shape", tag)
+                    .description("실행 중인 조회 수")
+                    .register(registry);
+            Gauge.builder("member.search.admission.waiting", lane, AdmissionLane::getWaiting)
+                    .tag("shape", tag)
+                    .description("슬롯을 기다리는 조회 수")
+                    .register(registry);
+            FunctionCounter.builder("member.search.admission.rejected", lane, AdmissionLane::getRejected)
+                    .tag("shape", tag)
+                    .description("대기열이 가득 차거나 대기 시간을 넘겨 거절된 조회 수")
+                    .register(registry);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static void cancelQuery(Session session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.cancelQuery();
+        } catch (RuntimeException e) {
+            // 취소 직전에 쿼리가 끝나 세션이 닫힌 경우
+            log.debug("failed to cancel running search query", e);
+        }
+    }
+
+    private static int seconds(Duration timeout) {
+        return (int) Math.max(1, (timeout.toMillis() + 999) / 1000);
+    }
+}
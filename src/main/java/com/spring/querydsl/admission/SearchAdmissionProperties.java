@@ -0,0 +1,46 @@
+package com.spring.querydsl.admission;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "member.admission")
+public class SearchAdmissionProperties {
+
+    private Limit usernamePoint = new Limit(4, 64, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+    private Limit teamScoped = new Limit(4, 16, Duration.ofMillis(500), Duration.ofSeconds(5));
+
+    private Limit unbounded = new Limit(2, 2, Duration.ZERO, Duration.ofSeconds(30));
+
+    public Limit limit(SearchShape shape) {
+        return switch (shape) {
+            case USERNAME_POINT -> usernamePoint;
+            case TEAM_SCOPED -> teamScoped;
+            case UNBOUNDED -> unbounded;
+        };
+    }
+
+    @Data
+    public static class Limit {
+        private int maxConcurrent;
+        private int maxQueued;
+        // 실행 슬롯을 기다리는 최대 시간, 0이면 슬롯이 없을 때 바로 거절
+        private Duration queueTimeout;
+        // 트랜잭션 타임아웃으로 적용되어 JDBC 쿼리 타임아웃이 된다(초 단위로 올림)
+        private Duration statementTimeout;
+
+        public Limit() {
+        }
+
+        Limit(int maxConcurrent, int maxQueued, Duration queueTimeout, Duration statementTimeout) {
+            this.maxConcurrent = maxConcurrent;
+            this.maxQueued = maxQueued;
+            this.queueTimeout = queueTimeout;
+            this.statementTimeout = statementTimeout;
+        }
+    }
+}
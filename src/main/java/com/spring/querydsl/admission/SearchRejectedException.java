@@ -0,0 +1,19 @@
+package com.spring.querydsl.admission;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 대기열이 가득 찼거나 제한 시간을 넘긴 조회. 클라이언트는 잠시 후 다시 시도할 수 있다.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SearchRejectedException extends RuntimeException {
+
+    public SearchRejectedException(String message) {
+        super(message);
+    }
+
+    public SearchRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,28 @@
+package com.spring.querydsl.admission;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+
+/**
+ * 조건에 어떤 필드가 있는지로 나눈 조회 비용 등급.
+ */
+public enum SearchShape {
+
+    // username 단건 조회
+    USERNAME_POINT,
+    // 팀 하나로 범위가 좁혀진 조회
+    TEAM_SCOPED,
+    // username/teamName 없이 나이 범위만 있거나 조건이 없는 조회, 테이블 전체를 읽을 수 있다
+    UNBOUNDED;
+
+    public static SearchShape of(MemberSearchCondition condition) {
+        if (hasText(condition.getUsername())) {
+            return USERNAME_POINT;
+        }
+        if (hasText(condition.getTeamName())) {
+            return TEAM_SCOPED;
+        }
+        return UNBOUNDED;
+    }
+}
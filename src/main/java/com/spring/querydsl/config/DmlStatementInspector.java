@@ -0,0 +1,72 @@
+package com.spring.querydsl.config;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import com.spring.querydsl.feed.ChangeFeed;
+import com.spring.querydsl.feed.ChangeType;
+import com.spring.querydsl.repository.MemberChangeTracker;
+import com.spring.querydsl.repository.TableVersions;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Hibernate가 실행하는 SQL 중 member/team 테이블을 변경하는 DML을 감지한다.
+ * <p>
+ * QueryDSL의 update/delete 벌크 연산은 엔티티 리스너를 거치지 않으므로 SQL 수준에서 잡아낸다.
+ * 엔티티 flush로 생긴 DML도 함께 감지되지만 버전이 한 번 더 오르는 것뿐이라 문제 없다.
+ * <p>
+ * 변경 피드에는 벌크 연산만 기록한다(엔티티 단위 변경은 EntityChangeListener가 기록).
+ * Hibernate 6는 HQL update/delete를 테이블 별칭과 함께 렌더링하고(update member m1_0 set ...),
+ * flush로 생긴 문장은 별칭 없이 렌더링하므로(update member set ... where member_id=?) 이것으로 구분한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class DmlStatementInspector implements StatementInspector {
+
+    private static final Pattern DML = Pattern.compile(
+            "^\\s*(?:insert\\s+into|update|delete\\s+from)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BULK = Pattern.compile(
+            "^\\s*(update|delete\\s+from)\\s+(\\w+)\\s+(?!set\\b|where\\b)\\w+", Pattern.CASE_INSENSITIVE);
+
+    private final TableVersions tableVersions;
+    private final ChangeFeed changeFeed;
+    // 대상 id를 알려 주지 않은 벌크 변경은 커밋 후 인덱스/샤드 전체를 다시 읽게 한다
+    private final MemberChangeTracker memberChangeTracker;
+
+    @Override
+    public String inspect(String sql) {
+        Matcher matcher = DML.matcher(sql);
+        if (matcher.find()) {
+            String table = matcher.group(1);
+            if ("member".equalsIgnoreCase(table)) {
+                tableVersions.bumpMember();
+            } else if ("team".equalsIgnoreCase(table)) {
+                tableVersions.bumpTeam();
+            }
+            recordBulk(sql);
+        }
+        return sql;
+    }
+
+    private void recordBulk(String sql) {
+        Matcher bulk = BULK.matcher(sql);
+        if (!bulk.find()) {
+            return;
+        }
+        ChangeType type = bulk.group(1).regionMatches(true, 0, "update", 0, 6)
+                ? ChangeType.BULK_UPDATE
+                : ChangeType.BULK_DELETE;
+        String table = bulk.group(2);
+        if ("member".equalsIgnoreCase(table)) {
+            memberChangeTracker.markBulkChange();
+            changeFeed.record("Member", type, null);
+        } else if ("team".equalsIgnoreCase(table)) {
+            memberChangeTracker.markBulkChange();
+            changeFeed.record("Team", type, null);
+        }
+    }
+}
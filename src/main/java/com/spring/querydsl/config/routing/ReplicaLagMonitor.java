@@ -0,0 +1,112 @@
+package com.spring.querydsl.config.routing;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.spring.querydsl.repository.TableVersions;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * heartbeat 방식의 replica 지연 감시.
+ * <p>
+ * primary의 replication_heartbeat 행을 주기적으로 현재 시각으로 갱신하고, 각 replica에서 읽은 값과의 차이를 지연으로 본다.
+ * 지연이 임계값을 넘거나 조회에 실패한 replica는 다음 확인 때까지 읽기 대상에서 제외된다.
+ * <p>
+ * heartbeat 행에는 쓰기 직전에 읽은 TableVersions 스냅샷도 함께 기록한다. replica에서 읽은 스냅샷까지의 커밋은
+ * 그 replica에 복제된 것이므로, 특정 버전 이후의 데이터가 필요한 조회는 covers로 replica를 고른다.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private final JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas;
+    private final Supplier<TableVersions.Snapshot> versions;
+    private final long maxLagMs;
+    private final Map<String, Boolean> healthy = new ConcurrentHashMap<>();
+    // replica에서 마지막으로 읽은 heartbeat의 버전, 그 버전까지의 커밋은 복제되어 있다
+    private final Map<String, TableVersions.Snapshot> replicated = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, ? extends DataSource> replicas,
+            Supplier<TableVersions.Snapshot> versions, long maxLagMs) {
+        this.primary = new JdbcTemplate(primary);
+        this.versions = versions;
+        this.replicas = new ConcurrentHashMap<>();
+        replicas.forEach((key, dataSource) -> this.replicas.put(key, new JdbcTemplate(dataSource)));
+        this.maxLagMs = maxLagMs;
+        replicas.keySet().forEach(key -> healthy.put(key, true));
+    }
+
+    public void start(long intervalMs) {
+        this.primary.execute("create table if not exists replication_heartbeat (id int primary key, ts timestamp)");
+        for (String column : new String[] {"epoch", "member_version", "team_version"}) {
+            this.primary.execute("alter table replication_heartbeat add column if not exists " + column + " bigint");
+        }
+        scheduler.scheduleWithFixedDelay(this::check, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isHealthy(String key) {
+        return healthy.getOrDefault(key, false);
+    }
+
+    /**
+     * replica가 required 버전까지의 커밋을 복제했다고 확인됐는지. 다음 heartbeat가 복제되기 전까지는 false일 수 있다.
+     */
+    public boolean covers(String key, TableVersions.Snapshot required) {
+        TableVersions.Snapshot snapshot = replicated.get(key);
+        return snapshot != null && snapshot.covers(required);
+    }
+
+    void check() {
+        try {
+            // 쓰기 전에 읽어야 이 버전까지의 커밋이 heartbeat보다 먼저 복제된다
+            TableVersions.Snapshot snapshot = versions.get();
+            primary.update("merge into replication_heartbeat (id, ts, epoch, member_version, team_version) key (id)"
+                    + " values (1, ?, ?, ?, ?)", new Timestamp(System.currentTimeMillis()),
+                    snapshot.epoch(), snapshot.memberVersion(), snapshot.teamVersion());
+        } catch (RuntimeException e) {
+            log.warn("failed to write replication heartbeat", e);
+            return;
+        }
+        replicas.forEach((key, replica) -> {
+            boolean ok;
+            try {
+                Heartbeat heartbeat = replica.queryForObject(
+                        "select ts, epoch, member_version, team_version from replication_heartbeat where id = 1",
+                        (rs, rowNum) -> new Heartbeat(rs.getTimestamp("ts"), new TableVersions.Snapshot(
+                                rs.getLong("epoch"), rs.getLong("member_version"), rs.getLong("team_version"))));
+                replicated.put(key, heartbeat.versions());
+                ok = heartbeat.ts() != null && System.currentTimeMillis() - heartbeat.ts().getTime() <= maxLagMs;
+            } catch (RuntimeException e) {
+                replicated.remove(key);
+                ok = false;
+            }
+            if (!Objects.equals(healthy.put(key, ok), ok)) {
+                log.info("replica {} is now {}", key, ok ? "in rotation" : "out of rotation (lag or error)");
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private record Heartbeat(Timestamp ts, TableVersions.Snapshot versions) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.spring.querydsl.config.routing;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.spring.querydsl.repository.TableVersions;
+
+/**
+ * 읽기 전용 트랜잭션은 replica로, 나머지는 primary로 보낸다.
+ * <p>
+ * replica는 정상(지연이 임계값 이하)인 것 중에서 round-robin으로 고르고, 정상인 replica가 없으면 primary를 사용한다.
+ * TableVersions.readAtLeast로 필요한 버전이 지정된 조회는 그 버전까지 복제된 replica만 쓰고, 없으면 primary로 간다.
+ * 트랜잭션 속성이 정해진 뒤 커넥션을 얻어야 하므로 LazyConnectionDataSourceProxy로 감싸서 사용한다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+    private final ReplicaLagMonitor lagMonitor;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(List<String> replicaKeys, ReplicaLagMonitor lagMonitor) {
+        this.replicaKeys = replicaKeys;
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicaKeys.isEmpty()) {
+            return PRIMARY;
+        }
+        TableVersions.Snapshot required = TableVersions.requiredVersions();
+        int start = Math.floorMod(next.getAndIncrement(), replicaKeys.size());
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            String key = replicaKeys.get((start + i) % replicaKeys.size());
+            if (lagMonitor.isHealthy(key) && (required == null || lagMonitor.covers(key, required))) {
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,82 @@
+package com.spring.querydsl.config.routing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.spring.querydsl.repository.TableVersions;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * datasource.routing.enabled=true 이면 기본 DataSource 대신 primary/replica 라우팅 DataSource를 사용한다.
+ * 로컬에서는 replica 프로필(application-replica.yml)로 띄울 수 있다.
+ */
+@Configuration
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    public RoutingTargets routingTargets(RoutingDataSourceProperties properties) {
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            replicas.put("replica-" + i, pool("replica-" + i, properties.getReplicas().get(i)));
+        }
+        return new RoutingTargets(pool(ReplicaRoutingDataSource.PRIMARY, properties.getPrimary()), replicas);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(RoutingTargets targets, RoutingDataSourceProperties properties,
+            TableVersions tableVersions) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(targets.primary(), targets.replicas(),
+                tableVersions::snapshot, properties.getMaxReplicaLagMs());
+        monitor.start(properties.getHeartbeatIntervalMs());
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutingTargets targets, ReplicaLagMonitor replicaLagMonitor) {
+        Map<Object, Object> lookup = new HashMap<>(targets.replicas());
+        lookup.put(ReplicaRoutingDataSource.PRIMARY, targets.primary());
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(
+                new ArrayList<>(targets.replicas().keySet()), replicaLagMonitor);
+        routing.setTargetDataSources(lookup);
+        routing.setDefaultTargetDataSource(targets.primary());
+        routing.afterPropertiesSet();
+
+        // 트랜잭션의 readOnly 여부가 정해진 뒤 실제 커넥션을 얻도록 지연
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static HikariDataSource pool(String name, RoutingDataSourceProperties.Node node) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(node.getUrl());
+        dataSource.setUsername(node.getUsername());
+        dataSource.setPassword(node.getPassword());
+        dataSource.setMaximumPoolSize(node.getMaximumPoolSize());
+        return dataSource;
+    }
+
+    public record RoutingTargets(HikariDataSource primary, Map<String, HikariDataSource> replicas)
+            implements AutoCloseable {
+
+        @Override
+        public void close() {
+            replicas.values().forEach(HikariDataSource::close);
+            primary.close();
+        }
+    }
+}
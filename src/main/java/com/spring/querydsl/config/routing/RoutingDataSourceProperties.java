@@ -0,0 +1,32 @@
+package com.spring.querydsl.config.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+
+    private Node primary = new Node();
+
+    private List<Node> replicas = new ArrayList<>();
+
+    // 이 시간 이상 뒤처진 replica는 읽기 대상에서 제외
+    private long maxReplicaLagMs = 1000;
+
+    private long heartbeatIntervalMs = 200;
+
+    @Data
+    public static class Node {
+        private String url;
+        private String username = "sa";
+        private String password = "";
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,65 @@
+package com.spring.querydsl.controller;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.spring.querydsl.feed.ChangeEvent;
+import com.spring.querydsl.feed.ChangeFeed;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Member/Team 변경 피드. 각 이벤트의 id는 sequence이며, 재접속 시 Last-Event-ID 헤더나 since 파라미터로 이어 받는다.
+ * 둘 다 없으면 접속 이후의 변경부터 보낸다. 보내지 못한 이벤트가 member.feed.max-lag를 넘게 쌓이면 연결을 끊는다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ChangeFeedController {
+
+    private final ChangeFeed changeFeed;
+
+    @Value("${member.feed.emitter-timeout:1800000}")
+    private long emitterTimeout;
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(@RequestParam(required = false) Long since,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        long after = lastEventId != null ? lastEventId : since != null ? since : changeFeed.getHead();
+
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        ChangeFeed.Subscription subscription = changeFeed.subscribe(after, new ChangeFeed.Sink() {
+            @Override
+            public void send(ChangeEvent event) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.sequence()))
+                        .name("change")
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void reset(long sequence) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(sequence))
+                        .name("reset")
+                        .data(sequence));
+            }
+
+            // 밀려서 끊긴 구독자, 클라이언트는 Last-Event-ID로 다시 접속한다
+            @Override
+            public void disconnect() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return emitter;
+    }
+}
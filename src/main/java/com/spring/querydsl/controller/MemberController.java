@@ -1,27 +1,107 @@
 package com.spring.querydsl.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.spring.querydsl.admission.SearchShape;
 import com.spring.querydsl.dto.MemberSearchCondition;
 import com.spring.querydsl.dto.MemberTeamDto;
-import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.MemberExporter;
+import com.spring.querydsl.repository.MemberSearchCoalescer;
+import com.spring.querydsl.repository.ReactiveMemberSearch;
+import com.spring.querydsl.repository.TableVersions;
 
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
-    private final MemberRepository memberRepository;
+    private final MemberSearchCoalescer memberSearchCoalescer;
+    private final TableVersions tableVersions;
+    private final MemberExporter memberExporter;
+    private final ReactiveMemberSearch reactiveMemberSearch;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * 조건 모양(SearchShape)에 따라 실행 방식을 고른다. username/teamName으로 좁혀진 조회는 짧으므로 요청 스레드에서
+     * 바로 실행해 List로 응답하고, 테이블 전체를 읽을 수 있는 조회만 별도 스레드에서 실행해 DeferredResult로 응답한다.
+     * 이 경우 클라이언트 연결이 끊기거나 요청 타임아웃이 나면 실행 중인 쿼리를 취소한다.
+     * <p>
+     * 반환 타입이 Object인 것은 두 경우를 한 핸들러에서 처리하기 위해서다. Spring MVC는 실제 반환 값의 타입으로
+     * 처리 방식을 고르므로, 좁혀진 조회는 async dispatch 없이 바로 본문이 쓰인다.
+     */
     @GetMapping("/members")
-    public List<MemberTeamDto> searchMember(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPage(condition, pageable)
-                .getContent();
+    public Object searchMember(MemberSearchCondition condition, Pageable pageable, WebRequest webRequest) {
+        // 조회 전에 읽은 버전을 ETag로 쓴다. 결과는 이 버전 이후의 데이터이므로 이전 데이터가 새 버전으로 캐시되지 않는다
+        TableVersions.Snapshot versions = tableVersions.snapshot();
+        // 테이블 버전이 그대로면 조회 없이 304 응답
+        if (webRequest.checkNotModified(etag(versions, condition, pageable))) {
+            return null;
+        }
+
+        if (SearchShape.of(condition) != SearchShape.UNBOUNDED) {
+            return memberSearchCoalescer.searchPage(condition, pageable, versions).getContent();
+        }
+
+        DeferredResult<List<MemberTeamDto>> result = new DeferredResult<>();
+        CompletableFuture<Page<MemberTeamDto>> search = memberSearchCoalescer.searchPageAsync(condition, pageable,
+                versions);
+        result.onTimeout(() -> search.cancel(true));
+        result.onError(e -> search.cancel(true));
+        search.whenComplete((page, e) -> {
+            if (e == null) {
+                result.setResult(page.getContent());
+            } else if (!search.isCancelled()) {
+                result.setErrorResult(e instanceof CompletionException ? e.getCause() : e);
+            }
+        });
+        return result;
+    }
+
+    @GetMapping(value = "/members/export", produces = "application/x-ndjson")
+    public StreamingResponseBody exportMember(MemberSearchCondition condition) {
+        return out -> memberExporter.export(condition, dto -> writeLine(out, dto));
+    }
+
+    /**
+     * 요청 스레드를 붙잡지 않고 행 단위로 흘려보낸다. 클라이언트가 읽는 속도만큼만 DB에서 가져오고,
+     * 연결이 끊기면 구독이 취소되어 커넥션도 바로 반납된다.
+     */
+    @GetMapping(value = "/members/stream", produces = "application/x-ndjson")
+    public Flux<MemberTeamDto> streamMember(MemberSearchCondition condition) {
+        return reactiveMemberSearch.search(condition);
+    }
+
+    private void writeLine(OutputStream out, MemberTeamDto dto) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(dto));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etag(TableVersions.Snapshot versions, MemberSearchCondition condition, Pageable pageable) {
+        String params = condition + "|" + pageable;
+        return versions + "-" + DigestUtils.md5DigestAsHex(params.getBytes(StandardCharsets.UTF_8));
     }
 
 }
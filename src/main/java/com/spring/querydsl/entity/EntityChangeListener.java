@@ -0,0 +1,57 @@
+package com.spring.querydsl.entity;
+
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.spring.querydsl.feed.ChangeFeed;
+import com.spring.querydsl.feed.ChangeType;
+import com.spring.querydsl.repository.MemberChangeTracker;
+import com.spring.querydsl.repository.TableVersions;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Member/Team 변경을 감지하는 엔티티 리스너.
+ * Hibernate가 SpringBeanContainer를 통해 이 빈을 사용하므로 의존성 주입이 가능하다.
+ * EntityManagerFactory 생성 중에 만들어지므로 EntityManager를 쓰는 빈은 직접 주입받지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    // 바뀐 id만 알려 주면 커밋 후 인덱스/샤드가 기본 DB에서 다시 읽어 반영한다
+    private final MemberChangeTracker memberChangeTracker;
+    private final TableVersions tableVersions;
+    private final ChangeFeed changeFeed;
+
+    @PostPersist
+    public void onInsert(Object entity) {
+        onChange(entity, ChangeType.INSERT);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        onChange(entity, ChangeType.UPDATE);
+    }
+
+    @PostRemove
+    public void onDelete(Object entity) {
+        onChange(entity, ChangeType.DELETE);
+    }
+
+    private void onChange(Object entity, ChangeType type) {
+        if (entity instanceof Member member) {
+            memberChangeTracker.markMembersChanged(List.of(member.getId()));
+            tableVersions.bumpMember();
+            changeFeed.record("Member", type, member.getId());
+        } else if (entity instanceof Team team) {
+            memberChangeTracker.markTeamsChanged(List.of(team.getId()));
+            tableVersions.bumpTeam();
+            changeFeed.record("Team", type, team.getId());
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.spring.querydsl.entity;
 
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
@@ -14,6 +18,9 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Entity
+// 변경된 컬럼만 update, 같은 컬럼을 바꾼 행끼리는 같은 SQL이라 배치로 묶인다
+@DynamicUpdate
+@EntityListeners(EntityChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -49,8 +56,19 @@ public class Member {
         }
     }
 
+    /**
+     * 연관관계 편의 메서드. 반대편 Team.members는 이미 로딩된 경우에만 갱신하여
+     * 팀 이동만으로 지연 로딩 컬렉션(팀의 전체 회원)이 조회되지 않도록 한다.
+     * 로딩되지 않은 컬렉션은 나중에 초기화될 때 DB에서 바뀐 상태로 읽힌다.
+     */
     public void changeTeam(Team team) {
+        if (this.team != null && Hibernate.isInitialized(this.team)
+                && Hibernate.isInitialized(this.team.getMembers())) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers())) {
+            team.getMembers().add(this);
+        }
     }
 }
@@ -0,0 +1,10 @@
+package com.spring.querydsl.feed;
+
+import java.time.Instant;
+
+/**
+ * @param entity "Member" 또는 "Team"
+ * @param id     벌크 변경이면 null
+ */
+public record ChangeEvent(long sequence, String entity, ChangeType type, Long id, Instant committedAt) {
+}
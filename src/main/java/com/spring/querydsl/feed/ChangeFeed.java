@@ -0,0 +1,283 @@
+package com.spring.querydsl.feed;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Member/Team 변경 이벤트를 커밋된 순서대로 보관하는 고정 크기 ring buffer.
+ * <p>
+ * 트랜잭션 안에서 기록된 변경은 커밋 후에 sequence를 받아 발행되고, 롤백되면 버려진다.
+ * 구독자는 마지막으로 받은 sequence 이후부터 이어 받으며, 그 사이 이벤트가 이미 밀려났으면
+ * reset을 받고 전체를 다시 읽은 뒤 reset의 sequence부터 이어 받으면 된다.
+ * <p>
+ * 구독자마다 자기 cursor부터 ring을 읽어 보내므로 ring의 [cursor, head] 구간이 구독자별 대기열이 된다. 전송은 구독자마다
+ * 별도 sender 스레드에서 하므로 느린 클라이언트의 blocking send는 그 구독자만 멈춘다. 대기열이 max-lag를 넘게
+ * 밀린 구독자는 끊는다. 클라이언트는 Last-Event-ID로 다시 접속해 이어 받거나, 이미 밀려났으면 reset을 받는다.
+ */
+@Slf4j
+@Component
+public class ChangeFeed {
+
+    // 한 번에 구독자에게 보내는 최대 이벤트 수
+    private static final int DRAIN_BATCH = 256;
+
+    private final ChangeEvent[] ring;
+    // 마지막으로 발행된 sequence, this로 보호
+    private long head;
+    private final long initialSequence;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    // 보내는 중인 구독자마다 스레드 하나, 대기열 없이 maxSenders를 넘으면 그 구독자를 끊는다
+    private final ThreadPoolExecutor senders;
+    private final long maxLag;
+
+    public ChangeFeed(@Value("${member.feed.capacity:4096}") int capacity,
+            @Value("${member.feed.max-senders:64}") int maxSenders,
+            @Value("${member.feed.max-lag:1024}") long maxLag) {
+        this.ring = new ChangeEvent[Math.max(capacity, 1)];
+        // 재시작 후 sequence가 예전 값과 겹치지 않도록 기동 시각에서 시작, 예전 sequence로 재개하면 reset을 받는다
+        this.initialSequence = System.currentTimeMillis() * 1000;
+        this.head = initialSequence;
+        this.maxLag = Math.max(maxLag, 1);
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(0, Math.max(maxSenders, 1), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "change-feed-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 변경을 기록한다. 트랜잭션 동기화가 활성화돼 있으면 커밋 후에 발행한다.
+     */
+    public void record(String entity, ChangeType type, Long id) {
+        Pending change = new Pending(entity, type, id);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(change));
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Pending> pending = (List<Pending>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Pending> changes = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(changes);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeFeed.this);
+                }
+            });
+            pending = changes;
+        }
+        pending.add(change);
+    }
+
+    public synchronized long getHead() {
+        return head;
+    }
+
+    /**
+     * after 이후의 이벤트를 sink로 보낸다. after가 버퍼에 남아 있는 범위보다 오래됐거나 max-lag보다 뒤처져 있으면
+     * 먼저 reset을 보낸다.
+     *
+     * @param after 마지막으로 받은 sequence, 처음 구독이면 getHead()
+     */
+    public Subscription subscribe(long after, Sink sink) {
+        Subscription subscription = new Subscription(after, sink);
+        // 접속하자마자 밀린 구독자로 끊기지 않도록 이어 받기 대신 reset부터 보낸다
+        subscription.resetFirst = getHead() - after > maxLag;
+        subscriptions.add(subscription);
+        subscription.signal();
+        return subscription;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void publish(List<Pending> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        // 이번에 발행하는 이벤트는 빼고, 이미 보낼 수 있었던 이벤트가 max-lag 넘게 쌓인 구독자만 밀린 것으로 본다
+        long before;
+        synchronized (this) {
+            before = head;
+            for (Pending change : changes) {
+                head++;
+                ring[index(head)] = new ChangeEvent(head, change.entity(), change.type(), change.id(), now);
+            }
+        }
+        for (Subscription subscription : subscriptions) {
+            long lag = before - subscription.cursor;
+            if (!subscription.resetFirst && lag > maxLag) {
+                subscription.disconnect("lagging " + lag + " events behind");
+            } else {
+                subscription.signal();
+            }
+        }
+    }
+
+    /**
+     * @return after가 버퍼 범위를 벗어났으면 null
+     */
+    synchronized List<ChangeEvent> read(long after, int max) {
+        long oldest = Math.max(initialSequence + 1, head - ring.length + 1);
+        if (after + 1 < oldest || after > head) {
+            return null;
+        }
+        List<ChangeEvent> events = new ArrayList<>((int) Math.min(max, head - after));
+        for (long sequence = after + 1; sequence <= head && events.size() < max; sequence++) {
+            events.add(ring[index(sequence)]);
+        }
+        return events;
+    }
+
+    private int index(long sequence) {
+        return (int) Math.floorMod(sequence, (long) ring.length);
+    }
+
+    public interface Sink {
+
+        void send(ChangeEvent event) throws IOException;
+
+        /**
+         * 요청한 위치의 이벤트가 더 이상 없으니 전체를 다시 읽고 sequence부터 이어 받으라는 신호.
+         */
+        void reset(long sequence) throws IOException;
+
+        /**
+         * 구독자가 밀려 끊는다. 보내는 중이었으면 그 send가 끝난 뒤 sender 스레드에서 호출된다.
+         */
+        default void disconnect() {
+        }
+    }
+
+    public final class Subscription {
+
+        private final Sink sink;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean disconnected = new AtomicBoolean();
+        private volatile long cursor;
+        private volatile boolean closed;
+        // 밀려서 끊긴 경우, 클라이언트가 끊은 경우와 달리 sink.disconnect()로 연결을 닫아야 한다
+        private volatile boolean dropped;
+        private volatile boolean resetFirst;
+
+        private Subscription(long after, Sink sink) {
+            this.cursor = after;
+            this.sink = sink;
+        }
+
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+
+        // 발행 스레드는 blocking send를 기다리지 않는다. 보내는 중이면 drain이 끝날 때 sink.disconnect()를 호출한다
+        private void disconnect(String reason) {
+            if (closed) {
+                return;
+            }
+            log.info("disconnecting change feed subscriber: {}", reason);
+            dropped = true;
+            close();
+            if (draining.compareAndSet(false, true)) {
+                notifyDisconnect();
+            }
+        }
+
+        private void notifyDisconnect() {
+            if (disconnected.compareAndSet(false, true)) {
+                try {
+                    sink.disconnect();
+                } catch (RuntimeException e) {
+                    log.debug("failed to disconnect change feed subscriber", e);
+                }
+            }
+        }
+
+        // 구독자마다 한 번에 하나의 drain만 실행되도록 한다
+        private void signal() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    disconnect("no sender thread available");
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    List<ChangeEvent> events = resetFirst ? null : read(cursor, DRAIN_BATCH);
+                    if (events == null) {
+                        long sequence = getHead();
+                        sink.reset(sequence);
+                        cursor = sequence;
+                        resetFirst = false;
+                        continue;
+                    }
+                    if (events.isEmpty()) {
+                        break;
+                    }
+                    for (ChangeEvent event : events) {
+                        if (closed) {
+                            break;
+                        }
+                        sink.send(event);
+                        cursor = event.sequence();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("change feed subscriber closed", e);
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (closed) {
+                // 보내는 중에 밀려 끊긴 경우, send가 끝났으므로 이제 연결을 닫는다
+                if (dropped && draining.compareAndSet(false, true)) {
+                    notifyDisconnect();
+                }
+                return;
+            }
+            // drain을 끝내는 사이에 발행된 이벤트가 있으면 다시 실행
+            if (cursor < getHead()) {
+                signal();
+            }
+        }
+    }
+
+    private record Pending(String entity, ChangeType type, Long id) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.spring.querydsl.feed;
+
+public enum ChangeType {
+    INSERT,
+    UPDATE,
+    DELETE,
+    // QueryDSL 벌크 연산, 어떤 행이 바뀌었는지는 알 수 없으므로 id 없이 발행된다
+    BULK_UPDATE,
+    BULK_DELETE
+}
@@ -0,0 +1,105 @@
+package com.spring.querydsl.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * 지정한 로거(SQL 로그 등)의 이벤트를 rate 비율로만 남긴다.
+ * <p>
+ * Hibernate/p6spy는 isDebugEnabled()/isInfoEnabled()로 확인한 뒤에 SQL을 포맷하므로,
+ * 레벨 확인 호출(format == null)에서 샘플링하면 버려질 로그의 포맷 비용도 아낄 수 있다.
+ * <p>
+ * 한 이벤트에 대한 결정은 통과/버림 모두 스레드에 남겨 두고, 뒤이은 로깅 호출(format != null)에 그대로 적용한 뒤 지운다.
+ * 확인 없이 들어온 로깅 호출은 그 자리에서 샘플링한다. p6spy처럼 확인 후 버려지면 로깅 호출이 오지 않는 경우에도
+ * 다음 확인은 새 이벤트로 보고 다시 샘플링하므로 남은 결정이 다음 이벤트에 끌려가지 않는다.
+ * <p>
+ * Hibernate SqlStatementLogger는 isDebugEnabled()로 확인한 뒤 항상 debug()를 부르고, JBoss Logging 브리지가 그 안에서
+ * 레벨을 한 번 더 확인한다. 이 로거들은 recheckedLoggerName으로 지정하며, 남긴 결정을 다음 확인 한 번에도 적용해
+ * 두 번째 확인이 다시 샘플링하지 않게 한다(그러지 않으면 실제 비율이 2r - r^2 이 된다).
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final List<String> loggerNames = new ArrayList<>();
+    private final List<String> recheckedLoggerNames = new ArrayList<>();
+    // 레벨 확인에서 내린 결정 중 아직 로깅 호출이 오지 않은 것
+    private final ThreadLocal<Decision> pending = new ThreadLocal<>();
+    private double rate = 1.0;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (rate >= 1.0 || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        if (!matches(loggerNames, name)) {
+            return FilterReply.NEUTRAL;
+        }
+        Decision decision = pending.get();
+        boolean sameLogger = decision != null && decision.loggerName.equals(name);
+
+        if (format != null) {
+            if (sameLogger) {
+                pending.remove();
+                return decision.reply;
+            }
+            return sample();
+        }
+        if (sameLogger && decision.rechecks > 0) {
+            decision.rechecks--;
+            return decision.reply;
+        }
+        FilterReply reply = sample();
+        pending.set(new Decision(name, reply, matches(recheckedLoggerNames, name) ? 1 : 0));
+        return reply;
+    }
+
+    private FilterReply sample() {
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private static boolean matches(List<String> prefixes, String name) {
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void addLoggerName(String loggerName) {
+        loggerNames.add(loggerName);
+    }
+
+    /**
+     * 로깅 호출 안에서 레벨을 한 번 더 확인하는(JBoss Logging 경유) 로거. 샘플링 대상에도 포함된다.
+     */
+    public void addRecheckedLoggerName(String loggerName) {
+        loggerNames.add(loggerName);
+        recheckedLoggerNames.add(loggerName);
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    private static final class Decision {
+        private final String loggerName;
+        private final FilterReply reply;
+        // 이 결정을 다시 샘플링하지 않고 적용할 남은 레벨 확인 횟수
+        private int rechecks;
+
+        private Decision(String loggerName, FilterReply reply, int rechecks) {
+            this.loggerName = loggerName;
+            this.reply = reply;
+            this.rechecks = rechecks;
+        }
+    }
+}
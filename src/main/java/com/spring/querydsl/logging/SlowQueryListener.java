@@ -0,0 +1,51 @@
+package com.spring.querydsl.logging;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+/**
+ * 실행 시간이 임계값을 넘은 쿼리를 바인딩 값, 호출 위치와 함께 slow-query 로그에 남긴다.
+ * 샘플링 대상이 아니므로 임계값을 넘은 쿼리는 항상 기록된다.
+ */
+@Component
+public class SlowQueryListener extends SimpleJdbcEventListener {
+
+    private static final Logger journal = LoggerFactory.getLogger("slow-query");
+    private static final String APP_PACKAGE = "com.spring.querydsl.";
+    private static final String LOGGING_PACKAGE = "com.spring.querydsl.logging.";
+
+    private final long thresholdNanos;
+
+    public SlowQueryListener(@Value("${logging.slow-query.threshold-ms:200}") long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (timeElapsedNanos < thresholdNanos) {
+            return;
+        }
+        journal.warn("{} ms | {} | {}",
+                TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                callSite(),
+                statementInformation.getSqlWithValues());
+    }
+
+    // 쿼리를 실행한 애플리케이션 코드(QueryDSL을 호출한 repository 메서드 등)의 위치
+    private static String callSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APP_PACKAGE)
+                        && !frame.getClassName().startsWith(LOGGING_PACKAGE))
+                .findFirst()
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse("unknown"));
+    }
+}
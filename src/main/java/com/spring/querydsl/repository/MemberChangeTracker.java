@@ -0,0 +1,238 @@
+package com.spring.querydsl.repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 커밋된 Member/Team 변경을 읽기 사본(MemberReadModel)에 전달한다.
+ * <p>
+ * 트랜잭션마다 바뀐 회원/팀 id를 모아 두었다가, 커밋되면 별도 스레드(member-change-sync)가 사본마다 applyChanges를 호출한다.
+ * JPA 엔티티 변경은 EntityChangeListener가, changeTeam은 대상 회원 id를 직접 알려 준다. 범위를 알 수 없는 벌크 변경만
+ * 커밋 후 사본 전체를 다시 읽는다. JPA/Hibernate를 거치지 않는 JDBC 쓰기는 호출한 쪽에서 reloadAll()을 불러야 한다.
+ * <p>
+ * 커밋됐지만 아직 반영되지 않은 변경이 있거나, 현재 트랜잭션에 커밋 전 변경이 있으면 isCurrent()가 false가 되고
+ * 조회는 기본 DB로 돌아간다. 반영에 실패한 사본은 retry-delay 뒤에 전체를 다시 읽어 복구한다.
+ */
+@Slf4j
+@Component
+public class MemberChangeTracker {
+
+    // 사본 쓰기는 모두 이 스레드 하나에서 순서대로 실행
+    private final ScheduledExecutorService syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-change-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // EntityManagerFactory 생성 중에 만들어지므로 EntityManager를 쓰는 사본은 늦게 가져온다
+    private final ObjectProvider<MemberReadModel> readModels;
+    private final long retryDelayMs;
+
+    // 커밋됐지만 아직 사본에 반영되지 않은 트랜잭션 수
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public MemberChangeTracker(ObjectProvider<MemberReadModel> readModels,
+            @Value("${member.sync.retry-delay-ms:1000}") long retryDelayMs) {
+        this.readModels = readModels;
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    /**
+     * 사본이 기본 DB의 커밋된 상태를 모두 반영했고, 현재 트랜잭션에도 아직 커밋되지 않은 변경이 없는지.
+     */
+    public boolean isCurrent() {
+        return pending.get() == 0 && !TransactionSynchronizationManager.hasResource(this);
+    }
+
+    /**
+     * 모든 사본을 기본 DB 전체로 다시 읽고 끝날 때까지 기다린다. 기동 시와 JDBC로 직접 쓴 뒤에 호출한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadAll() {
+        await(syncExecutor.submit(() -> readModels.orderedStream().forEach(this::reloadNow)));
+    }
+
+    /**
+     * 사본 하나만 다시 읽고 끝날 때까지 기다린다.
+     */
+    public void reload(MemberReadModel readModel) {
+        await(syncExecutor.submit(() -> reloadNow(readModel)));
+    }
+
+    /**
+     * 지금까지 커밋된 변경이 사본에 반영될 때까지 기다린다.
+     */
+    public void awaitSync() {
+        await(syncExecutor.submit(() -> {
+        }));
+    }
+
+    public void markMembersChanged(Collection<Long> memberIds) {
+        Changes changes = changes();
+        changes.memberIds.addAll(memberIds);
+        submitIfNoTransaction(changes);
+    }
+
+    public void markTeamsChanged(Collection<Long> teamIds) {
+        Changes changes = changes();
+        changes.teamIds.addAll(teamIds);
+        submitIfNoTransaction(changes);
+    }
+
+    /**
+     * 호출한 쪽이 대상 id를 markMembersChanged로 알려 준 벌크 문장을 곧 실행한다. 다음 markBulkChange 한 번은 무시된다.
+     */
+    public void expectScopedBulkChange() {
+        changes().scopedBulkStatements++;
+    }
+
+    /**
+     * 벌크 update/delete 감지 시 호출. 범위를 알려 준 문장이 아니면 커밋 후 전체를 다시 읽는다.
+     */
+    public void markBulkChange() {
+        Changes changes = changes();
+        if (changes.scopedBulkStatements > 0) {
+            changes.scopedBulkStatements--;
+        } else {
+            changes.full = true;
+        }
+        submitIfNoTransaction(changes);
+    }
+
+    private Changes changes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new Changes();
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new Changes();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            Changes registered = changes;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+                // TableVersions보다 먼저 실행되어야 새 버전을 읽은 요청이 반영 전 사본을 조회하지 않는다
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MemberChangeTracker.this);
+                    if (status == STATUS_COMMITTED) {
+                        pending.incrementAndGet();
+                        submit(registered);
+                    }
+                }
+            });
+        }
+        return changes;
+    }
+
+    // 트랜잭션 밖의 쓰기는 이미 커밋됐으므로 바로 반영
+    private void submitIfNoTransaction(Changes changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.incrementAndGet();
+            submit(changes);
+        }
+    }
+
+    private void submit(Changes changes) {
+        List<MemberReadModel> targets = readModels.orderedStream().toList();
+        try {
+            syncExecutor.execute(() -> {
+                try {
+                    for (MemberReadModel readModel : targets) {
+                        apply(readModel, changes);
+                    }
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            targets.forEach(MemberReadModel::markStale);
+        }
+    }
+
+    private void apply(MemberReadModel readModel, Changes changes) {
+        try {
+            if (changes.full) {
+                readModel.reloadAll();
+            } else {
+                readModel.applyChanges(changes.memberIds, changes.teamIds);
+            }
+        } catch (RuntimeException e) {
+            readModel.markStale();
+            log.warn("failed to apply changes to {}, reloading in {}ms",
+                    readModel.getClass().getSimpleName(), retryDelayMs, e);
+            scheduleReload(readModel);
+        }
+    }
+
+    private void reloadNow(MemberReadModel readModel) {
+        try {
+            readModel.reloadAll();
+        } catch (RuntimeException e) {
+            readModel.markStale();
+            throw e;
+        }
+    }
+
+    private void scheduleReload(MemberReadModel readModel) {
+        syncExecutor.schedule(() -> {
+            try {
+                reloadNow(readModel);
+            } catch (RuntimeException e) {
+                log.warn("failed to reload {}, retrying in {}ms",
+                        readModel.getClass().getSimpleName(), retryDelayMs, e);
+                scheduleReload(readModel);
+            }
+        }, retryDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause
+                    ? cause
+                    : new IllegalStateException("member change sync failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for member change sync", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        syncExecutor.shutdownNow();
+    }
+
+    private static final class Changes {
+        private final Set<Long> memberIds = new HashSet<>();
+        private final Set<Long> teamIds = new HashSet<>();
+        private boolean full;
+        private int scopedBulkStatements;
+    }
+}
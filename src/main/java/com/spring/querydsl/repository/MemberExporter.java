@@ -0,0 +1,110 @@
+package com.spring.querydsl.repository;
+
+import static com.spring.querydsl.entity.QMember.member;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+/**
+ * 조건에 맞는 회원 전체를 내보낸다.
+ * <p>
+ * member.id 범위를 chunk로 나눠 여러 커넥션에서 병렬로 조회하고, chunk 순서대로 sink에 넘겨 id 순서를 유지한다.
+ * 동시에 메모리에 올라가는 chunk 수는 max-buffered-chunks로 제한한다.
+ * 각 chunk는 별도 트랜잭션(커넥션)을 사용하므로 parallelism은 커넥션 풀 크기보다 작게 잡아야 한다.
+ */
+@Component
+public class MemberExporter {
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService executor;
+
+    private final long chunkSize;
+    private final int maxBufferedChunks;
+
+    public MemberExporter(EntityManager em,
+            MemberRepository memberRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${member.export.parallelism:4}") int parallelism,
+            @Value("${member.export.chunk-size:10000}") long chunkSize,
+            @Value("${member.export.max-buffered-chunks:8}") int maxBufferedChunks) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.memberRepository = memberRepository;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.executor = Executors.newFixedThreadPool(parallelism);
+        this.chunkSize = chunkSize;
+        this.maxBufferedChunks = Math.max(maxBufferedChunks, 1);
+    }
+
+    /**
+     * @return 내보낸 회원 수
+     */
+    public long export(MemberSearchCondition condition, Consumer<MemberTeamDto> sink) {
+        Tuple bounds = queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .fetchOne();
+        Long minId = bounds == null ? null : bounds.get(member.id.min());
+        Long maxId = bounds == null ? null : bounds.get(member.id.max());
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+
+        Deque<Future<List<MemberTeamDto>>> window = new ArrayDeque<>();
+        long nextFrom = minId;
+        long exported = 0;
+        try {
+            while (nextFrom <= maxId || !window.isEmpty()) {
+                // 버퍼에 여유가 있으면 다음 chunk를 미리 요청
+                while (nextFrom <= maxId && window.size() < maxBufferedChunks) {
+                    long from = nextFrom;
+                    long to = from + chunkSize;
+                    window.addLast(executor.submit(() -> readOnlyTx.execute(
+                            status -> memberRepository.searchByIdRange(condition, from, to))));
+                    nextFrom = to;
+                }
+
+                for (MemberTeamDto dto : window.removeFirst().get()) {
+                    sink.accept(dto);
+                    exported++;
+                }
+            }
+            return exported;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("member export interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause
+                    ? cause
+                    : new IllegalStateException("member export failed", e.getCause());
+        } finally {
+            window.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,25 @@
+package com.spring.querydsl.repository;
+
+import java.util.Set;
+
+/**
+ * 기본 DB의 Member/Team을 복제해 조회에 쓰는 읽기 사본(메모리 인덱스, 샤드).
+ * 모든 메서드는 MemberChangeTracker의 반영 스레드에서 순서대로 호출된다.
+ */
+public interface MemberReadModel {
+
+    /**
+     * 커밋된 변경을 반영한다. 이 id들의 현재 행을 기본 DB에서 다시 읽고, 없으면 사본에서도 지운다.
+     */
+    void applyChanges(Set<Long> memberIds, Set<Long> teamIds);
+
+    /**
+     * 기본 DB 전체를 다시 읽는다. 성공하면 다시 조회에 쓰일 수 있다.
+     */
+    void reloadAll();
+
+    /**
+     * 반영에 실패했을 때 호출된다. 다음 reloadAll이 성공할 때까지 조회에 쓰이지 않아야 한다.
+     */
+    void markStale();
+}
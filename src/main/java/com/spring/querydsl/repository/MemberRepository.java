@@ -3,10 +3,12 @@ package com.spring.querydsl.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.spring.querydsl.entity.Member;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
+    @Transactional(readOnly = true)
     List<Member> findByUsername(String username);
                     
 }
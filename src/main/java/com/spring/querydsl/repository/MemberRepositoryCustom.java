@@ -1,15 +1,32 @@
 package com.spring.querydsl.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import com.spring.querydsl.dto.MemberSearchCondition;
 import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Team;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
     Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable);
+
+    // 샤드/검색 인덱스가 최신일 때만 결과를 반환, DB 커넥션을 쓰지 않는다
+    Optional<List<MemberTeamDto>> searchFromReadModel(MemberSearchCondition condition);
+
+    Optional<Page<MemberTeamDto>> searchPageFromReadModel(MemberSearchCondition condition, Pageable pageable);
+
+    // [fromId, toId) 범위의 회원을 id 순으로 조회
+    List<MemberTeamDto> searchByIdRange(MemberSearchCondition condition, long fromId, long toId);
+
+    // 입력 순서대로 반환, 없는 id는 제외
+    List<MemberTeamDto> findTeamDtosByIds(Collection<Long> ids);
+
+    // 조건에 맞는 회원들을 벌크 update로 team에 이동, 이동한 회원은 영속성 컨텍스트에서 분리되고 관련 팀은 다시 읽힌다
+    long changeTeam(MemberSearchCondition condition, Team team);
 }
@@ -1,15 +1,27 @@
 package com.spring.querydsl.repository;
 
+import static com.querydsl.jpa.JPAExpressions.select;
 import static com.spring.querydsl.entity.QMember.member;
 import static com.spring.querydsl.entity.QTeam.team;
 import static org.springframework.util.StringUtils.hasText;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
@@ -17,19 +29,56 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.spring.querydsl.dto.MemberSearchCondition;
 import com.spring.querydsl.dto.MemberTeamDto;
 import com.spring.querydsl.dto.QMemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.QTeam;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.shard.ShardedMemberStore;
+import com.spring.querydsl.stats.TeamAgeStatsTracker;
 
 import jakarta.persistence.EntityManager;
 
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
+	// IN 절 최대 크기, 2의 제곱수로 맞춰 쿼리 플랜 캐시를 재사용
+	private static final int MAX_IN_SIZE = 512;
+
+	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	// search/searchPage의 DB fallback 전용, 인덱스/샤드에서 응답하면 트랜잭션과 커넥션을 얻지 않는다
+	private final TransactionTemplate readOnlyTx;
+	private final MemberSearchIndex memberSearchIndex;
+	private final MemberChangeTracker memberChangeTracker;
+	// 샤딩 모드(member.sharding.enabled=true)일 때만 존재
+	private final ShardedMemberStore shardedMemberStore;
 
-	public MemberRepositoryCustomImpl(EntityManager em) {
+	public MemberRepositoryCustomImpl(EntityManager em, PlatformTransactionManager transactionManager,
+			MemberSearchIndex memberSearchIndex, MemberChangeTracker memberChangeTracker,
+			ObjectProvider<ShardedMemberStore> shardedMemberStore) {
+		this.em = em;
 		queryFactory = new JPAQueryFactory(em);
+		readOnlyTx = new TransactionTemplate(transactionManager);
+		readOnlyTx.setReadOnly(true);
+		this.memberSearchIndex = memberSearchIndex;
+		this.memberChangeTracker = memberChangeTracker;
+		this.shardedMemberStore = shardedMemberStore.getIfAvailable();
 	}
 
 	@Override
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		return searchFromReadModel(condition)
+				.orElseGet(() -> readOnlyTx.execute(status -> searchFromDb(condition)));
+	}
+
+	@Override
+	public Optional<List<MemberTeamDto>> searchFromReadModel(MemberSearchCondition condition) {
+		// 샤드가 최신이면 샤드, 아니면 인덱스에서 응답하고 둘 다 반영되지 않은 변경이 있으면 empty
+		if (shardedMemberStore != null && shardedMemberStore.isCurrent()) {
+			return Optional.of(shardedMemberStore.search(condition));
+		}
+		return memberSearchIndex.search(condition);
+	}
+
+	private List<MemberTeamDto> searchFromDb(MemberSearchCondition condition) {
 		return queryFactory
 				.select(new QMemberTeamDto(
 						member.id,
@@ -46,6 +95,155 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 				.fetch();
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public List<MemberTeamDto> searchByIdRange(MemberSearchCondition condition, long fromId, long toId) {
+		return queryFactory
+				.select(new QMemberTeamDto(
+						member.id,
+						member.username,
+						member.age,
+						team.id,
+						team.name))
+				.from(member)
+				.leftJoin(member.team, team)
+				.where(member.id.goe(fromId),
+						member.id.lt(toId),
+						usernameEq(condition.getUsername()),
+						teamNameEq(condition.getTeamName()),
+						ageGoe(condition.getAgeGoe()),
+						ageLoe(condition.getAgeLoe()))
+				.orderBy(member.id.asc())
+				.fetch();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<MemberTeamDto> findTeamDtosByIds(Collection<Long> ids) {
+		List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+		Map<Long, MemberTeamDto> byId = new HashMap<>(distinctIds.size() * 2);
+
+		for (int from = 0; from < distinctIds.size(); from += MAX_IN_SIZE) {
+			List<Long> chunk = distinctIds.subList(from, Math.min(from + MAX_IN_SIZE, distinctIds.size()));
+			queryFactory
+					.select(new QMemberTeamDto(
+							member.id,
+							member.username,
+							member.age,
+							team.id,
+							team.name))
+					.from(member)
+					.leftJoin(member.team, team)
+					.where(member.id.in(padToPowerOfTwo(chunk)))
+					.fetch()
+					.forEach(dto -> byId.put(dto.getMemberId(), dto));
+		}
+
+		List<MemberTeamDto> result = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			MemberTeamDto dto = byId.get(id);
+			if (dto != null) {
+				result.add(dto);
+			}
+		}
+		return result;
+	}
+
+	// 파라미터 개수가 달라지면 플랜이 새로 생기므로 마지막 id를 반복해 2의 제곱수 길이로 맞춘다
+	private static List<Long> padToPowerOfTwo(List<Long> ids) {
+		int size = Integer.highestOneBit(ids.size());
+		if (size < ids.size()) {
+			size <<= 1;
+		}
+		List<Long> padded = new ArrayList<>(size);
+		padded.addAll(ids);
+		Long last = ids.get(ids.size() - 1);
+		while (padded.size() < size) {
+			padded.add(last);
+		}
+		return padded;
+	}
+
+	@Override
+	@Transactional
+	public long changeTeam(MemberSearchCondition condition, Team team) {
+		// 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 먼저 반영하고, 실행 후에는 관련 엔티티만 정리한다
+		em.flush();
+
+		// 엔티티 이벤트가 없으므로 이동 전/후 팀의 나이 집계를 커밋 직전에 다시 계산하도록 표시
+		List<Long> affectedTeamIds = new ArrayList<>(queryFactory
+				.select(member.team.id)
+				.distinct()
+				.from(member)
+				.where(usernameEq(condition.getUsername()),
+						teamIdOfName(condition.getTeamName()),
+						ageGoe(condition.getAgeGoe()),
+						ageLoe(condition.getAgeLoe()),
+						member.team.id.isNotNull())
+				.fetch());
+		// team이 null이면 팀에서 빼는 것
+		if (team != null) {
+			affectedTeamIds.add(team.getId());
+		}
+		TeamAgeStatsTracker.markForRecompute(em.unwrap(SessionImplementor.class), affectedTeamIds);
+
+		// 인덱스/샤드는 이동하는 회원만 커밋 후 다시 맞춘다
+		List<Long> affectedMemberIds = queryFactory
+				.select(member.id)
+				.from(member)
+				.where(usernameEq(condition.getUsername()),
+						teamIdOfName(condition.getTeamName()),
+						ageGoe(condition.getAgeGoe()),
+						ageLoe(condition.getAgeLoe()))
+				.fetch();
+		memberChangeTracker.markMembersChanged(affectedMemberIds);
+		memberChangeTracker.expectScopedBulkChange();
+
+		long count = queryFactory
+				.update(member)
+				.set(member.team, team)
+				.where(usernameEq(condition.getUsername()),
+						teamIdOfName(condition.getTeamName()),
+						ageGoe(condition.getAgeGoe()),
+						ageLoe(condition.getAgeLoe()))
+				.execute();
+
+		evictMoved(affectedMemberIds, affectedTeamIds);
+		return count;
+	}
+
+	// 벌크 update로 DB와 달라진 엔티티만 정리한다. 이동한 회원은 분리하고, 이동 전/후 팀은 members 컬렉션을
+	// 다시 읽도록 refresh 한다. 팀을 분리하면 그 팀을 참조하는 다른 회원이 분리된 팀을 들고 있게 된다.
+	// 초기화되지 않은 프록시는 처음 접근할 때 DB에서 읽으므로 그대로 둔다.
+	private void evictMoved(List<Long> memberIds, List<Long> teamIds) {
+		SessionImplementor session = em.unwrap(SessionImplementor.class);
+		for (Long memberId : memberIds) {
+			Object loaded = loadedEntity(session, Member.class, memberId);
+			if (loaded != null) {
+				em.detach(loaded);
+			}
+		}
+		for (Long teamId : new LinkedHashSet<>(teamIds)) {
+			Object loaded = loadedEntity(session, Team.class, teamId);
+			if (loaded != null) {
+				em.refresh(loaded);
+			}
+		}
+	}
+
+	private static Object loadedEntity(SessionImplementor session, Class<?> entityClass, Long id) {
+		EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(entityClass);
+		return session.getPersistenceContextInternal().getEntity(session.generateEntityKey(id, persister));
+	}
+
+	// update 절에서는 join을 쓸 수 없어 서브쿼리로 팀 이름 조건을 건다
+	private BooleanExpression teamIdOfName(String teamName) {
+		QTeam teamSub = new QTeam("teamSub");
+		return hasText(teamName)
+				? member.team.id.in(select(teamSub.id).from(teamSub).where(teamSub.name.eq(teamName)))
+				: null;
+	}
+
 	private BooleanExpression usernameEq(String username) {
 		return hasText(username) ? member.username.eq(username) : null;
 	}
@@ -64,6 +262,20 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
 	@Override
 	public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+		return searchPageFromReadModel(condition, pageable)
+				.orElseGet(() -> readOnlyTx.execute(status -> searchPageFromDb(condition, pageable)));
+	}
+
+	@Override
+	public Optional<Page<MemberTeamDto>> searchPageFromReadModel(MemberSearchCondition condition, Pageable pageable) {
+		if (shardedMemberStore != null && shardedMemberStore.isCurrent()) {
+			return Optional.of(shardedMemberStore.searchPage(condition, pageable));
+		}
+		return memberSearchIndex.searchPage(condition, pageable);
+	}
+
+	// 인덱스/샤드와 같은 순서로 페이지를 나누도록 member_id 순으로 정렬
+	private Page<MemberTeamDto> searchPageFromDb(MemberSearchCondition condition, Pageable pageable) {
 		List<MemberTeamDto> content = queryFactory
 				.select(new QMemberTeamDto(
 						member.id,
@@ -77,49 +289,24 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 						teamNameEq(condition.getTeamName()),
 						ageGoe(condition.getAgeGoe()),
 						ageLoe(condition.getAgeLoe()))
+				.orderBy(member.id.asc())
 				.offset(pageable.getOffset())
 				.limit(pageable.getPageSize())
 				.fetch();
 
-		long total = queryFactory
-				.select(new QMemberTeamDto(
-						member.id,
-						member.username,
-						member.age,
-						team.id,
-						team.name))
-				.from(member)
-				.leftJoin(member.team, team)
-				.where(usernameEq(condition.getUsername()),
-						teamNameEq(condition.getTeamName()),
-						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe()))
-				.offset(pageable.getOffset())
-				.limit(pageable.getPageSize())
-				.fetch().size();
-
 		// count 쿼리 최적화
 		// 1. 페이지의 시작이고, 컨텐츠 사이즈가 페이지 보다 작을 때
 		// 2. 마지막 페이지 일 때
-		JPAQuery<MemberTeamDto> result2 = queryFactory
-				.select(new QMemberTeamDto(
-						member.id,
-						member.username,
-						member.age,
-						team.id,
-						team.name))
+		JPAQuery<Long> countQuery = queryFactory
+				.select(member.count())
 				.from(member)
 				.leftJoin(member.team, team)
 				.where(usernameEq(condition.getUsername()),
 						teamNameEq(condition.getTeamName()),
 						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe()))
-				.offset(pageable.getOffset())
-				.limit(pageable.getPageSize());
-		// return
-		PageableExecutionUtils.getPage(content, pageable, () -> result2.fetch().size());
+						ageLoe(condition.getAgeLoe()));
 
-		return new PageImpl<>(content, pageable, total);
+		return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
 	}
 
 }
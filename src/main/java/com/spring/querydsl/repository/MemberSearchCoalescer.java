@@ -0,0 +1,295 @@
+package com.spring.querydsl.repository;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.spring.querydsl.admission.SearchAdmissionControl;
+import com.spring.querydsl.admission.SearchShape;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 동일한 조건으로 동시에 들어온 search/searchPage 호출을 하나의 실행으로 합친다(single-flight).
+ * <p>
+ * 먼저 도착한 호출만 SearchAdmissionControl의 슬롯과 트랜잭션을 얻어 실제 조회를 수행하고, 실행 중에 들어온
+ * 같은 키의 호출은 슬롯이나 커넥션 없이 그 결과를 함께 받는다. 결과 객체는 호출자들 사이에서 공유되므로
+ * 수정하지 않아야 한다. 합류한 동기 호출은 member.coalescer.follower-timeout 까지만 기다린다.
+ * <p>
+ * 키에는 호출 전에 읽은 TableVersions 스냅샷이 포함된다. 쓰기가 커밋된 뒤 들어온 호출은 버전이 달라
+ * 커밋 전에 시작된 실행에 합류하지 않으므로, 호출자는 자기 스냅샷을 결과의 버전(ETag)으로 써도 된다.
+ * <p>
+ * 샤드/검색 인덱스가 최신이면 슬롯, 트랜잭션, 합치기 없이 바로 응답한다. DB 조회는 TableVersions.readAtLeast로
+ * 감싸 키의 버전까지 복제된 replica나 primary에서만 읽는다.
+ * <p>
+ * 비동기 호출(searchPageAsync)은 호출자마다 별도의 future를 받으며, 기다리던 호출자가 모두 취소해야
+ * 실행 중인 조회가 취소된다.
+ * <p>
+ * 실제 실행/합류한 호출 수(member.search.coalescer.calls)와 진행 중인 실행 수를 Micrometer로 노출한다.
+ */
+@Component
+public class MemberSearchCoalescer implements MeterBinder {
+
+    private final MemberRepository memberRepository;
+    private final SearchAdmissionControl admissionControl;
+    private final TableVersions tableVersions;
+    private final long followerTimeoutMs;
+
+    private final ConcurrentMap<Object, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executedCalls = new LongAdder();
+    private final LongAdder collapsedCalls = new LongAdder();
+
+    public MemberSearchCoalescer(MemberRepository memberRepository, SearchAdmissionControl admissionControl,
+            TableVersions tableVersions,
+            @Value("${member.coalescer.follower-timeout-ms:30000}") long followerTimeoutMs) {
+        this.memberRepository = memberRepository;
+        this.admissionControl = admissionControl;
+        this.tableVersions = tableVersions;
+        this.followerTimeoutMs = followerTimeoutMs;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = normalize(condition);
+        TableVersions.Snapshot versions = tableVersions.snapshot();
+        Optional<List<MemberTeamDto>> fromReadModel = memberRepository.searchFromReadModel(normalized);
+        if (fromReadModel.isPresent()) {
+            return fromReadModel.get();
+        }
+        return execute(new SearchKey(normalized, null, versions),
+                () -> admissionControl.call(SearchShape.of(normalized),
+                        () -> TableVersions.readAtLeast(versions, () -> memberRepository.search(normalized))));
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        return searchPage(condition, pageable, tableVersions.snapshot());
+    }
+
+    /**
+     * @param versions 호출 전에 읽은 테이블 버전, 같은 버전의 호출끼리만 결과를 공유한다
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable,
+            TableVersions.Snapshot versions) {
+        MemberSearchCondition normalized = normalize(condition);
+        Optional<Page<MemberTeamDto>> fromReadModel = memberRepository.searchPageFromReadModel(normalized, pageable);
+        if (fromReadModel.isPresent()) {
+            return fromReadModel.get();
+        }
+        return execute(new SearchKey(normalized, pageable, versions),
+                () -> admissionControl.call(SearchShape.of(normalized),
+                        () -> TableVersions.readAtLeast(versions,
+                                () -> memberRepository.searchPage(normalized, pageable))));
+    }
+
+    /**
+     * 조회를 별도 스레드에서 실행한다. 반환된 future를 cancel 해도 같은 조회를 기다리는 다른 호출자가 있으면
+     * 실행은 계속된다.
+     */
+    public CompletableFuture<Page<MemberTeamDto>> searchPageAsync(MemberSearchCondition condition,
+            Pageable pageable, TableVersions.Snapshot versions) {
+        MemberSearchCondition normalized = normalize(condition);
+        Optional<Page<MemberTeamDto>> fromReadModel = memberRepository.searchPageFromReadModel(normalized, pageable);
+        if (fromReadModel.isPresent()) {
+            return CompletableFuture.completedFuture(fromReadModel.get());
+        }
+        return executeAsync(new SearchKey(normalized, pageable, versions),
+                () -> admissionControl.submit(SearchShape.of(normalized),
+                        () -> TableVersions.readAtLeast(versions,
+                                () -> memberRepository.searchPage(normalized, pageable))));
+    }
+
+    /**
+     * key가 같은 실행이 진행 중이면 그 결과를 기다리고, 없으면 현재 스레드에서 loader를 실행한다.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T execute(Object key, Supplier<T> loader) {
+        while (true) {
+            InFlight mine = new InFlight();
+            InFlight running = inFlight.putIfAbsent(key, mine);
+            if (running == null) {
+                executedCalls.increment();
+                try {
+                    T result = loader.get();
+                    mine.result.complete(result);
+                    return result;
+                } catch (Throwable e) {
+                    // Error도 전달해야 합류한 호출들이 끝없이 기다리지 않는다
+                    mine.result.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            }
+            if (running.join()) {
+                collapsedCalls.increment();
+                try {
+                    return (T) await(running.result);
+                } finally {
+                    running.leave();
+                }
+            }
+            // 모든 호출자가 떠나 취소되는 중인 실행이면 새로 시작
+            inFlight.remove(key, running);
+        }
+    }
+
+    /**
+     * key가 같은 실행이 진행 중이면 그 결과를, 없으면 starter로 시작한 실행의 결과를 호출자별 future로 돌려준다.
+     * starter가 바로 던진 예외(거절 등)는 그대로 전파된다.
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> executeAsync(Object key, Supplier<? extends CompletableFuture<T>> starter) {
+        while (true) {
+            InFlight mine = new InFlight();
+            InFlight running = inFlight.putIfAbsent(key, mine);
+            if (running == null) {
+                executedCalls.increment();
+                CompletableFuture<T> work;
+                try {
+                    work = starter.get();
+                } catch (Throwable e) {
+                    mine.result.completeExceptionally(e);
+                    inFlight.remove(key, mine);
+                    throw e;
+                }
+                mine.work = work;
+                work.whenComplete((result, e) -> {
+                    if (e == null) {
+                        mine.result.complete(result);
+                    } else {
+                        mine.result.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+                    }
+                });
+                mine.result.whenComplete((result, e) -> inFlight.remove(key, mine));
+                return (CompletableFuture<T>) mine.view();
+            }
+            if (running.join()) {
+                collapsedCalls.increment();
+                return (CompletableFuture<T>) running.view();
+            }
+            inFlight.remove(key, running);
+        }
+    }
+
+    private Object await(CompletableFuture<Object> running) {
+        try {
+            return running.get(followerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("coalesced search did not complete in " + followerTimeoutMs + "ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("member.search.coalescer.calls", executedCalls, LongAdder::sum)
+                .tag("result", "executed")
+                .description("DB 조회를 직접 실행한 호출 수")
+                .register(registry);
+        FunctionCounter.builder("member.search.coalescer.calls", collapsedCalls, LongAdder::sum)
+                .tag("result", "collapsed")
+                .description("진행 중인 같은 조회에 합류한 호출 수")
+                .register(registry);
+        Gauge.builder("member.search.coalescer.running", inFlight, ConcurrentMap::size)
+                .description("진행 중인 조회 수")
+                .register(registry);
+    }
+
+    public long getExecutedCalls() {
+        return executedCalls.sum();
+    }
+
+    public long getCollapsedCalls() {
+        return collapsedCalls.sum();
+    }
+
+    // hasText 기준으로 조건을 판단하므로 빈 문자열은 null과 같은 키로 취급
+    private static MemberSearchCondition normalize(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(condition.getUsername()) ? condition.getUsername() : null);
+        normalized.setTeamName(hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+        normalized.setAgeGoe(condition.getAgeGoe());
+        normalized.setAgeLoe(condition.getAgeLoe());
+        return normalized;
+    }
+
+    record SearchKey(MemberSearchCondition condition, Pageable pageable, TableVersions.Snapshot versions) {
+    }
+
+    private static final class InFlight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        // 결과를 기다리는 호출자 수(실행한 호출 포함), 0이 되면 더 이상 합류할 수 없다
+        private final AtomicInteger callers = new AtomicInteger(1);
+        // 비동기 실행일 때의 실제 작업
+        private volatile Future<?> work;
+
+        boolean join() {
+            while (true) {
+                int current = callers.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (callers.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        // 마지막 호출자가 결과를 받기 전에 떠나면 실행 중인 작업을 취소한다
+        void leave() {
+            if (callers.decrementAndGet() == 0 && !result.isDone()) {
+                Future<?> running = work;
+                if (running != null) {
+                    running.cancel(true);
+                }
+            }
+        }
+
+        // 호출자별 future, 결과가 나오거나 호출자가 취소하면 leave
+        CompletableFuture<Object> view() {
+            CompletableFuture<Object> view = new CompletableFuture<>();
+            result.whenComplete((value, e) -> {
+                if (e == null) {
+                    view.complete(value);
+                } else {
+                    view.completeExceptionally(e);
+                }
+            });
+            view.whenComplete((value, e) -> leave());
+            return view;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.spring.querydsl.repository;
+
+import static com.spring.querydsl.entity.QMember.member;
+import static com.spring.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * MemberSearchCondition을 DB 대신 메모리에서 평가하는 컬럼형 인덱스.
+ * <p>
+ * 회원 행은 id 순서로 배열에 두고, username 해시/팀/나이별 행 집합을 BitSet으로 보관해 조건들을 비트 AND로 합친다.
+ * 커밋된 변경은 MemberChangeTracker가 바뀐 id만 알려 주고, 해당 행의 비트만 옮긴다. 범위를 알 수 없는 벌크 변경만
+ * 전체를 다시 적재한다. 반영 전이거나 현재 트랜잭션에 커밋 전 변경이 있으면 search/searchPage는 DB로 fallback 한다.
+ * 결과는 행 순서, 즉 member_id 오름차순이다.
+ * <p>
+ * 적재와 반영은 읽기-쓰기 트랜잭션으로 읽어 라우팅 DataSource에서도 항상 primary를 본다. 뒤처진 replica를 읽으면
+ * 커밋이 반영됐다고 표시된 인덱스가 이전 값을 갖게 된다.
+ */
+@Slf4j
+@Component
+public class MemberSearchIndex implements MemberReadModel {
+
+    private static final int USERNAME_BUCKETS = 1 << 12;
+    private static final int CHUNK_SIZE = 1000;
+
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate primaryTx;
+    private final MemberChangeTracker changeTracker;
+    private final boolean enabled;
+
+    // 조회는 read lock, 변경 반영과 교체는 write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Rows rows;
+    // 첫 적재 전이거나 반영에 실패해 전체 재적재를 기다리는 중
+    private volatile boolean stale = true;
+
+    public MemberSearchIndex(EntityManager em, PlatformTransactionManager transactionManager,
+            MemberChangeTracker changeTracker, @Value("${member.index.enabled:true}") boolean enabled) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.primaryTx = new TransactionTemplate(transactionManager);
+        this.changeTracker = changeTracker;
+        this.enabled = enabled;
+    }
+
+    /**
+     * 인덱스로 응답 가능하면 결과를, 적재 전이거나 반영되지 않은 변경이 있으면 empty를 반환한다.
+     */
+    public Optional<List<MemberTeamDto>> search(MemberSearchCondition condition) {
+        if (!enabled || stale || !changeTracker.isCurrent()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.of(rows.search(condition));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * member_id 오름차순으로 offset/limit 페이지와 전체 개수를 만든다. 응답할 수 없으면 empty.
+     */
+    public Optional<Page<MemberTeamDto>> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        if (!enabled || stale || !changeTracker.isCurrent()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.of(rows.searchPage(condition, pageable));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reloadAll() {
+        if (!enabled) {
+            return;
+        }
+        Rows loaded = new Rows();
+        List<Tuple> members = primaryTx.execute(status -> {
+            queryFactory
+                    .select(team.id, team.name)
+                    .from(team)
+                    .fetch()
+                    .forEach(tuple -> loaded.putTeam(tuple.get(team.id), tuple.get(team.name)));
+            return queryFactory
+                    .select(member.id, member.username, member.age, member.team.id)
+                    .from(member)
+                    .orderBy(member.id.asc())
+                    .fetch();
+        });
+        members.forEach(loaded::putMember);
+
+        lock.writeLock().lock();
+        try {
+            rows = loaded;
+            stale = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member search index loaded: {} rows", members.size());
+    }
+
+    @Override
+    public void applyChanges(Set<Long> memberIds, Set<Long> teamIds) {
+        if (!enabled || stale) {
+            // 전체 재적재가 예정되어 있으므로 부분 반영은 필요 없다
+            return;
+        }
+        Map<Long, String> teams = new HashMap<>();
+        List<Tuple> members = new ArrayList<>();
+        primaryTx.executeWithoutResult(status -> {
+            for (List<Long> chunk : chunks(teamIds)) {
+                queryFactory
+                        .select(team.id, team.name)
+                        .from(team)
+                        .where(team.id.in(chunk))
+                        .fetch()
+                        .forEach(tuple -> teams.put(tuple.get(team.id), tuple.get(team.name)));
+            }
+            for (List<Long> chunk : chunks(memberIds)) {
+                members.addAll(queryFactory
+                        .select(member.id, member.username, member.age, member.team.id)
+                        .from(member)
+                        .where(member.id.in(chunk))
+                        .fetch());
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            for (Long teamId : teamIds) {
+                if (teams.containsKey(teamId)) {
+                    rows.putTeam(teamId, teams.get(teamId));
+                } else {
+                    rows.removeTeam(teamId);
+                }
+            }
+            Set<Long> missing = new HashSet<>(memberIds);
+            for (Tuple tuple : members) {
+                missing.remove(tuple.get(member.id));
+                rows.putMember(tuple);
+            }
+            missing.forEach(rows::removeMember);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void markStale() {
+        stale = true;
+    }
+
+    private static List<List<Long>> chunks(Set<Long> ids) {
+        List<Long> list = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+
+    private static int usernameBucket(String username) {
+        return username.hashCode() & (USERNAME_BUCKETS - 1);
+    }
+
+    private static final class Rows {
+        // 팀이 없는 회원의 teamIds 값, 시퀀스는 1부터 시작한다
+        private static final long NO_TEAM = 0L;
+
+        private int size;
+        // id 오름차순, 행 번호는 이진 탐색으로 찾는다
+        private long[] ids = new long[1024];
+        private String[] usernames = new String[1024];
+        private int[] ages = new int[1024];
+        private long[] teamIds = new long[1024];
+
+        // 삭제된 행은 비트만 지우고 자리는 남겨 둔다(전체 재적재 시 정리)
+        private final BitSet live = new BitSet();
+        private final BitSet[] byUsername = new BitSet[USERNAME_BUCKETS];
+        private final Map<Long, BitSet> byTeamId = new HashMap<>();
+        private final TreeMap<Integer, BitSet> byAge = new TreeMap<>();
+
+        private final Map<Long, String> teamNames = new HashMap<>();
+        private final Map<String, Set<Long>> teamIdsByName = new HashMap<>();
+
+        void putTeam(Long teamId, String name) {
+            removeTeam(teamId);
+            teamNames.put(teamId, name);
+            if (name != null) {
+                teamIdsByName.computeIfAbsent(name, k -> new HashSet<>()).add(teamId);
+            }
+        }
+
+        void removeTeam(Long teamId) {
+            String name = teamNames.remove(teamId);
+            Set<Long> sameName = name == null ? null : teamIdsByName.get(name);
+            if (sameName != null) {
+                sameName.remove(teamId);
+                if (sameName.isEmpty()) {
+                    teamIdsByName.remove(name);
+                }
+            }
+        }
+
+        void putMember(Tuple tuple) {
+            long id = tuple.get(member.id);
+            int row = rowOf(id);
+            if (row < 0) {
+                // 행 순서가 곧 id 순서이므로 마지막 id보다 작은 새 회원은 끼워 넣지 않고 전체 재적재로 넘긴다
+                if (size > 0 && id < ids[size - 1]) {
+                    throw new IllegalStateException("member id " + id + " is out of index order");
+                }
+                row = append(id);
+            } else if (live.get(row)) {
+                unindex(row);
+            }
+            Long teamId = tuple.get(member.team.id);
+            usernames[row] = tuple.get(member.username);
+            ages[row] = tuple.get(member.age);
+            teamIds[row] = teamId == null ? NO_TEAM : teamId;
+            index(row);
+        }
+
+        void removeMember(Long id) {
+            int row = rowOf(id);
+            if (row >= 0 && live.get(row)) {
+                unindex(row);
+            }
+        }
+
+        private int rowOf(long id) {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            return row < 0 ? -1 : row;
+        }
+
+        private int append(long id) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamIds = Arrays.copyOf(teamIds, capacity);
+            }
+            ids[size] = id;
+            return size++;
+        }
+
+        private void index(int row) {
+            live.set(row);
+            if (usernames[row] != null) {
+                int bucket = usernameBucket(usernames[row]);
+                if (byUsername[bucket] == null) {
+                    byUsername[bucket] = new BitSet();
+                }
+                byUsername[bucket].set(row);
+            }
+            if (teamIds[row] != NO_TEAM) {
+                byTeamId.computeIfAbsent(teamIds[row], k -> new BitSet()).set(row);
+            }
+            byAge.computeIfAbsent(ages[row], k -> new BitSet()).set(row);
+        }
+
+        private void unindex(int row) {
+            live.clear(row);
+            if (usernames[row] != null) {
+                byUsername[usernameBucket(usernames[row])].clear(row);
+            }
+            if (teamIds[row] != NO_TEAM) {
+                byTeamId.get(teamIds[row]).clear(row);
+            }
+            byAge.get(ages[row]).clear(row);
+        }
+
+        List<MemberTeamDto> search(MemberSearchCondition condition) {
+            BitSet matched = match(condition);
+            List<MemberTeamDto> result = new ArrayList<>(matched.cardinality());
+            for (int row = matched.nextSetBit(0); row >= 0; row = matched.nextSetBit(row + 1)) {
+                // username 해시 버킷은 충돌이 있을 수 있으므로 실제 값으로 한 번 더 확인
+                if (hasText(condition.getUsername()) && !condition.getUsername().equals(usernames[row])) {
+                    continue;
+                }
+                result.add(toDto(row));
+            }
+            return result;
+        }
+
+        Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+            BitSet matched = match(condition);
+            // username 충돌 행이 섞일 수 있으면 끝까지 세고, 아니면 페이지를 채운 뒤 멈추고 비트 수를 전체 개수로 쓴다
+            boolean recheck = hasText(condition.getUsername());
+            List<MemberTeamDto> content = new ArrayList<>(pageable.getPageSize());
+            long index = 0;
+            for (int row = matched.nextSetBit(0); row >= 0; row = matched.nextSetBit(row + 1)) {
+                if (recheck && !condition.getUsername().equals(usernames[row])) {
+                    continue;
+                }
+                if (index++ < pageable.getOffset()) {
+                    continue;
+                }
+                if (content.size() < pageable.getPageSize()) {
+                    content.add(toDto(row));
+                } else if (!recheck) {
+                    break;
+                }
+            }
+            return new PageImpl<>(content, pageable, recheck ? index : matched.cardinality());
+        }
+
+        private BitSet match(MemberSearchCondition condition) {
+            BitSet matched = (BitSet) live.clone();
+
+            if (hasText(condition.getUsername())) {
+                BitSet bucket = byUsername[usernameBucket(condition.getUsername())];
+                if (bucket == null) {
+                    return new BitSet();
+                }
+                matched.and(bucket);
+            }
+            if (hasText(condition.getTeamName())) {
+                BitSet teamRows = new BitSet();
+                for (Long teamId : teamIdsByName.getOrDefault(condition.getTeamName(), Set.of())) {
+                    BitSet members = byTeamId.get(teamId);
+                    if (members != null) {
+                        teamRows.or(members);
+                    }
+                }
+                matched.and(teamRows);
+            }
+            if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+                int from = condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe();
+                int to = condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe();
+                BitSet ageRows = new BitSet();
+                if (from <= to) {
+                    byAge.subMap(from, true, to, true).values().forEach(ageRows::or);
+                }
+                matched.and(ageRows);
+            }
+            return matched;
+        }
+
+        private MemberTeamDto toDto(int row) {
+            Long teamId = teamIds[row] == NO_TEAM ? null : teamIds[row];
+            return new MemberTeamDto(ids[row], usernames[row], ages[row], teamId,
+                    teamId == null ? null : teamNames.get(teamId));
+        }
+    }
+}
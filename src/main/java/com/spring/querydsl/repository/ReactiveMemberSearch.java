@@ -0,0 +1,114 @@
+package com.spring.querydsl.repository;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * MemberRepositoryCustomImpl.search와 같은 조건을 R2DBC로 실행해 결과를 Flux로 흘려보낸다.
+ * <p>
+ * member_id 기준 keyset 페이지(fetch-size 행)로 나눠 구독자가 요청한 만큼만 읽고, 커넥션은 페이지를 읽는 동안만
+ * 점유한다. 페이지마다 따로 읽으므로 스트림 전체가 하나의 스냅샷은 아니다.
+ * ConnectionFactory를 빈으로 등록하면 JDBC DataSource 자동 설정이 빠지므로 풀을 이 클래스 안에서 관리한다.
+ */
+@Component
+public class ReactiveMemberSearch {
+
+    private final ConnectionPool pool;
+    private final DatabaseClient client;
+    private final int fetchSize;
+
+    public ReactiveMemberSearch(@Value("${member.reactive.url}") String url,
+            @Value("${member.reactive.username:sa}") String username,
+            @Value("${member.reactive.password:}") String password,
+            @Value("${member.reactive.max-pool-size:10}") int maxPoolSize,
+            @Value("${member.reactive.fetch-size:256}") int fetchSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(0)
+                .maxSize(maxPoolSize)
+                .build());
+        this.client = DatabaseClient.create(pool);
+        this.fetchSize = fetchSize;
+    }
+
+    public Flux<MemberTeamDto> search(MemberSearchCondition condition) {
+        // 다음 페이지는 앞 페이지를 다 내려보낸 뒤에 요청(prefetch 1)하므로 버퍼는 최대 두 페이지
+        return page(condition, Long.MIN_VALUE)
+                .expand(page -> page.size() < fetchSize
+                        ? Mono.empty()
+                        : page(condition, page.get(page.size() - 1).getMemberId()))
+                .flatMapIterable(Function.identity(), 1);
+    }
+
+    /**
+     * member_id가 afterId보다 큰 행을 fetchSize개까지 읽는다. DatabaseClient는 실행마다 풀에서 커넥션을 얻고
+     * 결과를 다 읽으면 반납하므로, 클라이언트가 느려도 페이지 사이에는 커넥션을 잡고 있지 않는다.
+     */
+    private Mono<List<MemberTeamDto>> page(MemberSearchCondition condition, long afterId) {
+        StringBuilder sql = new StringBuilder("""
+                select m.member_id, m.username, m.age, t.team_id, t.name
+                from member m left join team t on m.team_id = t.team_id
+                where m.member_id > :afterId""");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("afterId", afterId);
+        if (hasText(condition.getUsername())) {
+            sql.append(" and m.username = :username");
+            params.put("username", condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            sql.append(" and t.name = :teamName");
+            params.put("teamName", condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            sql.append(" and m.age >= :ageGoe");
+            params.put("ageGoe", condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            sql.append(" and m.age <= :ageLoe");
+            params.put("ageLoe", condition.getAgeLoe());
+        }
+        sql.append(" order by m.member_id limit :limit");
+        params.put("limit", fetchSize);
+
+        DatabaseClient.GenericExecuteSpec spec = client.sql(sql.toString());
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec
+                .map((row, metadata) -> new MemberTeamDto(
+                        row.get("member_id", Long.class),
+                        row.get("username", String.class),
+                        row.get("age", Integer.class),
+                        row.get("team_id", Long.class),
+                        row.get("name", String.class)))
+                .all()
+                .collectList();
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.dispose();
+    }
+}
@@ -0,0 +1,115 @@
+package com.spring.querydsl.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Member/Team 테이블의 변경 버전 카운터. 값은 단조 증가하며 ETag 계산에 사용한다.
+ * <p>
+ * 커밋 전에 읽힌 버전으로 이전 데이터가 캐시되지 않도록, 변경 시점과 트랜잭션 종료 시점에 모두 증가시킨다.
+ * <p>
+ * readAtLeast로 감싼 조회는 스냅샷까지의 커밋을 복제했다고 확인된 replica만 읽는다(ReplicaRoutingDataSource).
+ */
+@Component
+public class TableVersions {
+
+    // readAtLeast 안에서 조회가 반영하고 있어야 하는 버전
+    private static final ThreadLocal<Snapshot> REQUIRED = new ThreadLocal<>();
+
+    // 재시작 후 카운터가 겹쳐 예전 ETag와 일치하지 않도록 기동 시각을 함께 사용
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong memberVersion = new AtomicLong();
+    private final AtomicLong teamVersion = new AtomicLong();
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getMemberVersion() {
+        return memberVersion.get();
+    }
+
+    public long getTeamVersion() {
+        return teamVersion.get();
+    }
+
+    /**
+     * 조회 시작 전에 읽어 두는 버전. 결과는 이 버전 이후의 데이터이므로 ETag에 이 값을 쓰면
+     * 이전 데이터가 새 버전으로 캐시되지 않는다.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(epoch, memberVersion.get(), teamVersion.get());
+    }
+
+    /**
+     * versions까지의 커밋이 보이는 DB에서 read를 실행하게 한다. 스냅샷을 ETag로 쓰는 조회를 감싸면
+     * 뒤처진 replica의 이전 데이터가 새 ETag로 캐시되지 않는다. 커넥션을 얻는 스레드에서 호출해야 한다.
+     */
+    public static <T> T readAtLeast(Snapshot versions, Supplier<T> read) {
+        Snapshot previous = REQUIRED.get();
+        REQUIRED.set(versions);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                REQUIRED.remove();
+            } else {
+                REQUIRED.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 현재 스레드의 조회가 반영하고 있어야 하는 버전, readAtLeast 밖이면 null.
+     */
+    public static Snapshot requiredVersions() {
+        return REQUIRED.get();
+    }
+
+    public void bumpMember() {
+        bump(memberVersion);
+    }
+
+    public void bumpTeam() {
+        bump(teamVersion);
+    }
+
+    private void bump(AtomicLong version) {
+        version.incrementAndGet();
+        // 트랜잭션당 한 번만 종료 콜백을 등록
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(version)) {
+            TransactionSynchronizationManager.bindResource(version, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(version);
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    public record Snapshot(long epoch, long memberVersion, long teamVersion) {
+
+        /**
+         * 이 스냅샷을 읽은 시점에 other까지의 커밋이 모두 끝났는지. 버전은 커밋 후에도 증가하므로
+         * 두 카운터가 모두 other 이상이면 other가 셌던 커밋은 이 스냅샷보다 먼저 커밋됐다.
+         */
+        public boolean covers(Snapshot other) {
+            return epoch == other.epoch
+                    && memberVersion >= other.memberVersion
+                    && teamVersion >= other.teamVersion;
+        }
+
+        @Override
+        public String toString() {
+            return epoch + "-" + memberVersion + "-" + teamVersion;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.spring.querydsl.shard;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.repository.MemberChangeTracker;
+import com.spring.querydsl.repository.MemberReadModel;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * team_id 기준으로 Member를 N개의 H2 인스턴스에 나눠 둔 조회용 캐시 (member.sharding.enabled=true).
+ * <p>
+ * Team은 모든 샤드에 복제하고, Member는 team_id % N 샤드에 둔다(팀이 없으면 0번).
+ * teamName 조건이 있으면 해당 팀의 샤드만 조회하고, 그 외에는 모든 샤드를 병렬로 조회한 뒤
+ * member_id 순으로 k-way merge 한다. 페이지 조회 시 샤드마다 offset + limit 행만 가져온다.
+ * 정렬은 member_id 오름차순만 지원한다.
+ * <p>
+ * 샤드는 원본이 아니라 기본 DB의 읽기 사본이다. 모든 쓰기는 기본 DB에만 하고, 샤드는 커밋 후 MemberChangeTracker가
+ * 알려 준 회원/팀 id의 현재 행을 기본 DB에서 다시 읽어 맞춘다. 값을 다시 읽으므로 반영 순서가 뒤바뀌어도 최종 상태는 같다.
+ * <p>
+ * 커밋됐지만 아직 반영되지 않은 변경이 있거나 반영에 실패하면 isCurrent()가 false가 되고, 조회는 기본 DB로 돌아간다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.sharding.enabled", havingValue = "true")
+public class ShardedMemberStore implements MemberReadModel {
+
+    private static final String SCHEMA = """
+            create table if not exists team (team_id bigint primary key, name varchar(255));
+            create table if not exists member (
+                member_id bigint primary key, username varchar(255), age integer not null, team_id bigint);
+            create index if not exists member_team_idx on member (team_id, member_id)
+            """;
+
+    private static final RowMapper<MemberTeamDto> ROW_MAPPER = (rs, rowNum) -> new MemberTeamDto(
+            rs.getLong("member_id"),
+            rs.getString("username"),
+            rs.getInt("age"),
+            rs.getObject("team_id", Long.class),
+            rs.getString("name"));
+
+    private static final int SYNC_CHUNK_SIZE = 1000;
+
+    // 트랜잭션 없는 sync 스레드에서만 쓰므로 라우팅 DataSource에서도 replica가 아닌 primary로 간다
+    private final JdbcTemplate primary;
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final ExecutorService executor;
+    // 변경 반영 스레드와 조회 fallback 판단을 제공, 단독으로 만든 경우(테스트)에는 null
+    private final MemberChangeTracker changeTracker;
+
+    // 첫 적재 전이거나 반영에 실패해 전체 resync를 기다리는 중
+    private volatile boolean stale = true;
+
+    public ShardedMemberStore(DataSource dataSource, int shardCount, String urlPattern) {
+        this(dataSource, null, shardCount, urlPattern);
+    }
+
+    @Autowired
+    public ShardedMemberStore(DataSource dataSource, MemberChangeTracker changeTracker,
+            @Value("${member.sharding.shards:4}") int shardCount,
+            @Value("${member.sharding.url-pattern:jdbc:h2:mem:member_shard_%d;DB_CLOSE_DELAY=-1}") String urlPattern) {
+        this.primary = new JdbcTemplate(dataSource);
+        this.changeTracker = changeTracker;
+        for (int i = 0; i < shardCount; i++) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setJdbcUrl(urlPattern.formatted(i));
+            shard.setUsername("sa");
+            shard.setPoolName("member-shard-" + i);
+            dataSources.add(shard);
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shard);
+            for (String statement : SCHEMA.split(";")) {
+                jdbcTemplate.execute(statement);
+            }
+            shards.add(jdbcTemplate);
+        }
+        this.executor = Executors.newFixedThreadPool(shardCount);
+    }
+
+    /**
+     * 샤드가 기본 DB의 커밋된 상태를 모두 반영했는지. false면 조회는 기본 DB에서 해야 한다.
+     */
+    public boolean isCurrent() {
+        return !stale && (changeTracker == null || changeTracker.isCurrent());
+    }
+
+    /**
+     * 기본 DB의 내용으로 샤드 전체를 맞추고 끝날 때까지 기다린다. JDBC로 직접 쓴 뒤에 호출한다.
+     */
+    public void resync() {
+        if (changeTracker == null) {
+            reloadAll();
+        } else {
+            changeTracker.reload(this);
+        }
+    }
+
+    /**
+     * 지금까지 커밋된 변경이 샤드에 반영될 때까지 기다린다.
+     */
+    public void awaitSync() {
+        if (changeTracker != null) {
+            changeTracker.awaitSync();
+        }
+    }
+
+    @Override
+    public void applyChanges(Set<Long> memberIds, Set<Long> teamIds) {
+        syncTeams(teamIds);
+        syncMembers(memberIds);
+    }
+
+    @Override
+    public void markStale() {
+        stale = true;
+    }
+
+    // 팀은 모든 샤드에 복제
+    public void saveTeam(long teamId, String name) {
+        for (JdbcTemplate shard : shards) {
+            shard.update("merge into team (team_id, name) key (team_id) values (?, ?)", teamId, name);
+        }
+    }
+
+    public void saveMember(long memberId, String username, int age, Long teamId) {
+        int target = shardOf(teamId);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (shard != target) {
+                shards.get(shard).update("delete from member where member_id = ?", memberId);
+            }
+        }
+        shards.get(target).update(
+                "merge into member (member_id, username, age, team_id) key (member_id) values (?, ?, ?, ?)",
+                memberId, username, age, teamId);
+    }
+
+    public void deleteMember(long memberId) {
+        for (JdbcTemplate shard : shards) {
+            shard.update("delete from member where member_id = ?", memberId);
+        }
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<Iterator<MemberTeamDto>> results = scatter(condition, shard -> query(shard, condition, null));
+        List<MemberTeamDto> merged = new ArrayList<>();
+        mergeById(results, 0, Long.MAX_VALUE, merged);
+        return merged;
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        // 각 샤드에서 offset + limit 행까지만 가져오면 전체 순서상 해당 페이지를 만들 수 있다
+        long fetchSize = pageable.getOffset() + pageable.getPageSize();
+        List<Iterator<MemberTeamDto>> results = scatter(condition, shard -> query(shard, condition, fetchSize));
+
+        List<MemberTeamDto> content = new ArrayList<>(pageable.getPageSize());
+        mergeById(results, pageable.getOffset(), pageable.getPageSize(), content);
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(condition));
+    }
+
+    private long count(MemberSearchCondition condition) {
+        return scatter(condition, shard -> {
+            Where where = where(condition);
+            Long count = shard.queryForObject("select count(*) from member m left join team t on m.team_id = t.team_id"
+                    + where.sql, Long.class, where.args.toArray());
+            return count == null ? 0L : count;
+        }).stream().mapToLong(Long::longValue).sum();
+    }
+
+    private Iterator<MemberTeamDto> query(JdbcTemplate shard, MemberSearchCondition condition, Long limit) {
+        Where where = where(condition);
+        String sql = "select m.member_id, m.username, m.age, m.team_id, t.name"
+                + " from member m left join team t on m.team_id = t.team_id"
+                + where.sql
+                + " order by m.member_id";
+        if (limit != null) {
+            sql += " limit ?";
+            where.args.add(limit);
+        }
+        return shard.query(sql, ROW_MAPPER, where.args.toArray()).iterator();
+    }
+
+    /**
+     * teamName이 있으면 그 이름의 팀이 있는 샤드만, 없으면 모든 샤드에서 병렬로 실행한다.
+     */
+    private <T> List<T> scatter(MemberSearchCondition condition, Function<JdbcTemplate, T> work) {
+        List<JdbcTemplate> targets = targetShards(condition);
+        if (targets.size() == 1) {
+            return List.of(work.apply(targets.get(0)));
+        }
+        List<CompletableFuture<T>> futures = targets.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> work.apply(shard), executor))
+                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private List<JdbcTemplate> targetShards(MemberSearchCondition condition) {
+        if (!hasText(condition.getTeamName())) {
+            return shards;
+        }
+        // 팀은 모든 샤드에 복제되어 있으므로 0번 샤드에서 id를 찾는다
+        List<Long> teamIds = shards.get(0).queryForList(
+                "select team_id from team where name = ?", Long.class, condition.getTeamName());
+        Set<JdbcTemplate> targets = new LinkedHashSet<>();
+        for (Long teamId : teamIds) {
+            targets.add(shards.get(shardOf(teamId)));
+        }
+        return targets.isEmpty() ? List.of(shards.get(0)) : new ArrayList<>(targets);
+    }
+
+    // 샤드별로 member_id 정렬된 결과를 합치면서 앞의 skip개를 건너뛰고 limit개를 담는다
+    private static void mergeById(List<Iterator<MemberTeamDto>> sorted, long skip, long limit,
+            List<MemberTeamDto> out) {
+        record Head(MemberTeamDto dto, Iterator<MemberTeamDto> rest) {
+        }
+        PriorityQueue<Head> heap = new PriorityQueue<>(Comparator.comparingLong((Head head) -> head.dto().getMemberId()));
+        for (Iterator<MemberTeamDto> iterator : sorted) {
+            if (iterator.hasNext()) {
+                heap.add(new Head(iterator.next(), iterator));
+            }
+        }
+        long index = 0;
+        while (!heap.isEmpty() && out.size() < limit) {
+            Head head = heap.poll();
+            if (index++ >= skip) {
+                out.add(head.dto());
+            }
+            if (head.rest().hasNext()) {
+                heap.add(new Head(head.rest().next(), head.rest()));
+            }
+        }
+    }
+
+    private int shardOf(Long teamId) {
+        return teamId == null ? 0 : (int) Math.floorMod(teamId, (long) shards.size());
+    }
+
+    /**
+     * 모든 행을 덮어쓴 뒤 기본 DB에 없는 행을 지우므로 도중에 샤드를 조회해도 빈 결과를 보지 않는다.
+     */
+    @Override
+    public void reloadAll() {
+        Set<Long> teamIds = new HashSet<>();
+        primary.query("select team_id, name from team", rs -> {
+            teamIds.add(rs.getLong("team_id"));
+            saveTeam(rs.getLong("team_id"), rs.getString("name"));
+        });
+
+        List<Set<Long>> memberIds = new ArrayList<>();
+        List<List<Object[]>> batches = new ArrayList<>();
+        shards.forEach(shard -> {
+            memberIds.add(new HashSet<>());
+            batches.add(new ArrayList<>());
+        });
+        primary.query("select member_id, username, age, team_id from member", rs -> {
+            Long teamId = rs.getObject("team_id", Long.class);
+            int shard = shardOf(teamId);
+            memberIds.get(shard).add(rs.getLong("member_id"));
+            batches.get(shard).add(new Object[] {
+                    rs.getLong("member_id"), rs.getString("username"), rs.getInt("age"), teamId });
+            if (batches.get(shard).size() >= 10_000) {
+                insertMembers(shard, batches.get(shard));
+            }
+        });
+        for (int shard = 0; shard < shards.size(); shard++) {
+            insertMembers(shard, batches.get(shard));
+            prune(shards.get(shard), "member", "member_id", memberIds.get(shard));
+            prune(shards.get(shard), "team", "team_id", teamIds);
+        }
+        stale = false;
+        log.info("synced members into {} shards", shards.size());
+    }
+
+    private void syncMembers(Set<Long> memberIds) {
+        List<Long> ids = new ArrayList<>(memberIds);
+        for (int from = 0; from < ids.size(); from += SYNC_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + SYNC_CHUNK_SIZE, ids.size()));
+            Set<Long> missing = new HashSet<>(chunk);
+            primary.query("select member_id, username, age, team_id from member where member_id in ("
+                    + placeholders(chunk.size()) + ")", rs -> {
+                        missing.remove(rs.getLong("member_id"));
+                        saveMember(rs.getLong("member_id"), rs.getString("username"), rs.getInt("age"),
+                                rs.getObject("team_id", Long.class));
+                    }, chunk.toArray());
+            missing.forEach(this::deleteMember);
+        }
+    }
+
+    private void syncTeams(Set<Long> teamIds) {
+        for (Long teamId : teamIds) {
+            List<String> names = primary.queryForList("select name from team where team_id = ?", String.class, teamId);
+            if (names.isEmpty()) {
+                for (JdbcTemplate shard : shards) {
+                    shard.update("delete from team where team_id = ?", teamId);
+                }
+            } else {
+                saveTeam(teamId, names.get(0));
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static void prune(JdbcTemplate shard, String table, String idColumn, Set<Long> keep) {
+        List<Object[]> stale = shard.queryForList("select " + idColumn + " from " + table, Long.class).stream()
+                .filter(id -> !keep.contains(id))
+                .map(id -> new Object[] { id })
+                .toList();
+        if (!stale.isEmpty()) {
+            shard.batchUpdate("delete from " + table + " where " + idColumn + " = ?", stale);
+        }
+    }
+
+    private void insertMembers(int shard, List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            shards.get(shard).batchUpdate(
+                    "merge into member (member_id, username, age, team_id) key (member_id) values (?, ?, ?, ?)", batch);
+            batch.clear();
+        }
+    }
+
+    private static Where where(MemberSearchCondition condition) {
+        Where where = new Where();
+        if (hasText(condition.getUsername())) {
+            where.and("m.username = ?", condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            where.and("t.name = ?", condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            where.and("m.age >= ?", condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            where.and("m.age <= ?", condition.getAgeLoe());
+        }
+        return where;
+    }
+
+    private static class Where {
+        private String sql = "";
+        private final List<Object> args = new ArrayList<>();
+
+        void and(String predicate, Object arg) {
+            sql += (sql.isEmpty() ? " where " : " and ") + predicate;
+            args.add(arg);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
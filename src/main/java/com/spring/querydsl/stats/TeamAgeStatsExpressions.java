@@ -0,0 +1,60 @@
+package com.spring.querydsl.stats;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.spring.querydsl.entity.QMember;
+import com.spring.querydsl.entity.QTeamAgeStats;
+
+/**
+ * 팀 평균 나이와 비교하는 조건을 상관 서브쿼리(select avg(age) ... where team = m.team) 대신
+ * 미리 집계된 team_age_stats로 계산한다.
+ *
+ * <pre>
+ * QTeamAgeStats stats = QTeamAgeStats.teamAgeStats;
+ * TeamAgeStatsExpressions.joinTeamAgeStats(queryFactory.selectFrom(member), member, stats)
+ *         .where(TeamAgeStatsExpressions.ageGtTeamAvg(member, stats))
+ *         .fetch();
+ * </pre>
+ */
+public final class TeamAgeStatsExpressions {
+
+    private TeamAgeStatsExpressions() {
+    }
+
+    /**
+     * 회원의 팀 집계 행을 조인한다. 팀이 없는 회원은 제외된다.
+     */
+    public static <T> JPAQuery<T> joinTeamAgeStats(JPAQuery<T> query, QMember member, QTeamAgeStats stats) {
+        return query.join(stats).on(stats.teamId.eq(member.team.id));
+    }
+
+    public static NumberExpression<Double> avgAge(QTeamAgeStats stats) {
+        return stats.ageSum.doubleValue().divide(stats.memberCount);
+    }
+
+    // joinTeamAgeStats로 조인한 뒤 사용
+    public static BooleanExpression ageGtTeamAvg(QMember member, QTeamAgeStats stats) {
+        return member.age.doubleValue().gt(avgAge(stats));
+    }
+
+    public static BooleanExpression ageLtTeamAvg(QMember member, QTeamAgeStats stats) {
+        return member.age.doubleValue().lt(avgAge(stats));
+    }
+
+    public static BooleanExpression ageEqTeamMax(QMember member, QTeamAgeStats stats) {
+        return member.age.eq(stats.ageMax);
+    }
+
+    /**
+     * 조인을 추가할 수 없는 쿼리(update/delete 등)용. 집계 대신 기본키 조회 서브쿼리로 비교한다.
+     */
+    public static BooleanExpression ageGtTeamAvg(QMember member) {
+        QTeamAgeStats stats = new QTeamAgeStats("teamAgeStatsSub");
+        return member.age.doubleValue().gt(
+                JPAExpressions.select(avgAge(stats))
+                        .from(stats)
+                        .where(stats.teamId.eq(member.team.id)));
+    }
+}
@@ -0,0 +1,62 @@
+package com.spring.querydsl.stats;
+
+/**
+ * team_age_stats 갱신 SQL (H2 MERGE).
+ */
+public final class TeamAgeStatsSql {
+
+    // 증분 반영: 건수/합계는 더하고 최소/최대는 추가된 값과 비교(추가된 값이 없으면 null이므로 기존 값 유지)
+    public static final String APPLY_DELTA = """
+            merge into team_age_stats s
+            using (values (cast(? as bigint), cast(? as bigint), cast(? as bigint), cast(? as integer), cast(? as integer)))
+                d(team_id, member_count, age_sum, age_min, age_max)
+            on s.team_id = d.team_id
+            when matched then update set
+                member_count = s.member_count + d.member_count,
+                age_sum = s.age_sum + d.age_sum,
+                age_min = least(coalesce(s.age_min, d.age_min), coalesce(d.age_min, s.age_min)),
+                age_max = greatest(coalesce(s.age_max, d.age_max), coalesce(d.age_max, s.age_max))
+            when not matched then insert (team_id, member_count, age_sum, age_min, age_max)
+                values (d.team_id, d.member_count, d.age_sum, d.age_min, d.age_max)
+            """;
+
+    // 최소/최대 재계산이나 재집계 전에 집계 행을 잠근다
+    public static final String LOCK_TEAM =
+            "select member_count, age_min, age_max from team_age_stats where team_id = ? for update";
+
+    // 저장된 최소/최대 나이의 회원이 빠졌을 때 그 팀의 최소/최대만 다시 구한다(건수/합계는 증분 그대로)
+    public static final String RESCAN_MIN_MAX = """
+            update team_age_stats
+            set age_min = (select min(m.age) from member m where m.team_id = ?),
+                age_max = (select max(m.age) from member m where m.team_id = ?)
+            where team_id = ?
+            """;
+
+    private static final String RECOMPUTE = """
+            merge into team_age_stats s
+            using (select t.team_id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)
+                   from team t left join member m on m.team_id = t.team_id
+                   %s
+                   group by t.team_id)
+                d(team_id, member_count, age_sum, age_min, age_max)
+            on s.team_id = d.team_id
+            when matched then update set
+                member_count = d.member_count,
+                age_sum = d.age_sum,
+                age_min = d.age_min,
+                age_max = d.age_max
+            when not matched then insert (team_id, member_count, age_sum, age_min, age_max)
+                values (d.team_id, d.member_count, d.age_sum, d.age_min, d.age_max)
+            """;
+
+    // 한 팀을 member 테이블에서 다시 집계 (벌크 변경처럼 변화량을 모를 때)
+    public static final String RECOMPUTE_TEAM = RECOMPUTE.formatted("where t.team_id = ?");
+
+    // 전체 재집계 (JDBC로 직접 적재한 경우 등)
+    public static final String RECOMPUTE_ALL = RECOMPUTE.formatted("");
+
+    public static final String DELETE_TEAM = "delete from team_age_stats where team_id = ?";
+
+    private TeamAgeStatsSql() {
+    }
+}
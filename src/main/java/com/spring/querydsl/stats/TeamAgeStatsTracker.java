@@ -0,0 +1,244 @@
+package com.spring.querydsl.stats;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+
+/**
+ * Member insert/update/delete 이벤트로 team_age_stats를 증분 갱신한다.
+ * <p>
+ * 세션(트랜잭션)마다 팀별 변화량을 모아 두었다가 flush가 끝난 커밋 직전에 같은 커넥션으로 반영하므로
+ * 롤백되면 아무것도 반영되지 않는다. 건수/합계는 언제나 더하기/빼기로만 반영하므로 동시에 커밋되는
+ * 트랜잭션끼리 순서와 관계없이 맞는다. 빠진 나이가 저장된 최소/최대와 같을 때만 집계 행을 잠그고
+ * 그 팀의 최소/최대를 다시 구한다.
+ * 벌크 update/delete는 이벤트가 발생하지 않으므로 {@link #markForRecompute}로 영향받는 팀을 알려야 한다.
+ */
+public class TeamAgeStatsTracker implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Map<SharedSessionContractImplementor, Pending> pendingBySession = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Pending pending = pending(event.getSession());
+            pending.add(teamId(event.getPersister(), event.getState()), age(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            // merge된 detached 엔티티 등 이전 상태를 모르면 전체 재집계
+            pending(event.getSession()).recomputeAll = true;
+            return;
+        }
+        Long oldTeamId = teamId(event.getPersister(), event.getOldState());
+        Long newTeamId = teamId(event.getPersister(), event.getState());
+        int oldAge = age(event.getPersister(), event.getOldState());
+        int newAge = age(event.getPersister(), event.getState());
+        if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+            return;
+        }
+        Pending pending = pending(event.getSession());
+        pending.remove(oldTeamId, oldAge);
+        pending.add(newTeamId, newAge);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            pending(event.getSession()).remove(teamId(event.getPersister(), event.getDeletedState()),
+                    age(event.getPersister(), event.getDeletedState()));
+        } else if (event.getEntity() instanceof Team team) {
+            pending(event.getSession()).deletedTeams.add(team.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 벌크 연산 등 이벤트 없이 회원이 바뀐 팀을 커밋 직전에 다시 집계하도록 표시한다.
+     * teamIds가 null이면 전체를 다시 집계한다.
+     */
+    public static void markForRecompute(SessionImplementor session, Collection<Long> teamIds) {
+        Pending pending = pending(session);
+        if (teamIds == null) {
+            pending.recomputeAll = true;
+        } else {
+            pending.recompute.addAll(teamIds);
+        }
+    }
+
+    private static Pending pending(SessionImplementor session) {
+        return pendingBySession.computeIfAbsent(session, key -> {
+            Pending pending = new Pending();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) s -> {
+                pendingBySession.remove(s);
+                s.doWork(connection -> pending.apply(connection));
+            });
+            session.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, s) -> pendingBySession.remove(s));
+            return pending;
+        });
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Object team = state[persister.getPropertyIndex("team")];
+        return team == null ? null : ((Team) team).getId();
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getPropertyIndex("age")];
+    }
+
+    // 한 팀의 변화량
+    private static class Delta {
+        private long count;
+        private long sum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private Integer removedMin;
+        private Integer removedMax;
+    }
+
+    private static class Pending {
+        // 잠금 순서를 일정하게 해 트랜잭션끼리 교착되지 않도록 team_id 순으로 반영
+        private final Map<Long, Delta> deltas = new TreeMap<>();
+        private final Set<Long> recompute = new TreeSet<>();
+        private final Set<Long> deletedTeams = new HashSet<>();
+        private boolean recomputeAll;
+
+        void add(Long teamId, int age) {
+            if (teamId == null) {
+                return;
+            }
+            Delta delta = deltas.computeIfAbsent(teamId, k -> new Delta());
+            delta.count++;
+            delta.sum += age;
+            delta.addedMin = delta.addedMin == null ? age : Math.min(delta.addedMin, age);
+            delta.addedMax = delta.addedMax == null ? age : Math.max(delta.addedMax, age);
+        }
+
+        void remove(Long teamId, int age) {
+            if (teamId == null) {
+                return;
+            }
+            Delta delta = deltas.computeIfAbsent(teamId, k -> new Delta());
+            delta.count--;
+            delta.sum -= age;
+            delta.removedMin = delta.removedMin == null ? age : Math.min(delta.removedMin, age);
+            delta.removedMax = delta.removedMax == null ? age : Math.max(delta.removedMax, age);
+        }
+
+        void apply(Connection connection) throws SQLException {
+            if (recomputeAll) {
+                try (PreparedStatement statement = connection.prepareStatement(TeamAgeStatsSql.RECOMPUTE_ALL)) {
+                    statement.executeUpdate();
+                }
+            } else {
+                applyDeltas(connection);
+                recomputeTeams(connection);
+            }
+
+            if (!deletedTeams.isEmpty()) {
+                try (PreparedStatement statement = connection.prepareStatement(TeamAgeStatsSql.DELETE_TEAM)) {
+                    for (Long teamId : deletedTeams) {
+                        statement.setLong(1, teamId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+        }
+
+        private void applyDeltas(Connection connection) throws SQLException {
+            try (PreparedStatement lock = connection.prepareStatement(TeamAgeStatsSql.LOCK_TEAM);
+                    PreparedStatement apply = connection.prepareStatement(TeamAgeStatsSql.APPLY_DELTA);
+                    PreparedStatement rescan = connection.prepareStatement(TeamAgeStatsSql.RESCAN_MIN_MAX)) {
+                for (Map.Entry<Long, Delta> entry : deltas.entrySet()) {
+                    Long teamId = entry.getKey();
+                    Delta delta = entry.getValue();
+                    // 다시 집계할 팀은 증분을 더할 필요가 없다
+                    if (recompute.contains(teamId)) {
+                        continue;
+                    }
+
+                    // 빠진 나이가 최소/최대였는지는 다른 트랜잭션이 바꾸지 못하게 잠근 뒤에 판단한다
+                    boolean rescanNeeded = false;
+                    if (delta.removedMin != null) {
+                        lock.setLong(1, teamId);
+                        try (ResultSet rs = lock.executeQuery()) {
+                            if (rs.next()) {
+                                Integer storedMin = rs.getObject("age_min", Integer.class);
+                                Integer storedMax = rs.getObject("age_max", Integer.class);
+                                rescanNeeded = storedMin == null || storedMax == null
+                                        || delta.removedMin <= storedMin || delta.removedMax >= storedMax;
+                            }
+                        }
+                    }
+
+                    apply.setLong(1, teamId);
+                    apply.setLong(2, delta.count);
+                    apply.setLong(3, delta.sum);
+                    apply.setObject(4, delta.addedMin, Types.INTEGER);
+                    apply.setObject(5, delta.addedMax, Types.INTEGER);
+                    apply.executeUpdate();
+
+                    if (rescanNeeded) {
+                        rescan.setLong(1, teamId);
+                        rescan.setLong(2, teamId);
+                        rescan.setLong(3, teamId);
+                        rescan.executeUpdate();
+                    }
+                }
+            }
+        }
+
+        // 벌크 변경처럼 변화량을 모르는 팀은 행을 잠근 뒤 다시 집계해, 그 사이 커밋된 증분을 덮어쓰지 않게 한다
+        private void recomputeTeams(Connection connection) throws SQLException {
+            if (recompute.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement lock = connection.prepareStatement(TeamAgeStatsSql.LOCK_TEAM);
+                    PreparedStatement statement = connection.prepareStatement(TeamAgeStatsSql.RECOMPUTE_TEAM)) {
+                for (Long teamId : recompute) {
+                    lock.setLong(1, teamId);
+                    lock.executeQuery().close();
+                    statement.setLong(1, teamId);
+                    statement.executeUpdate();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+-- faststart 프로필에서 ddl-auto 대신 사용하는 스키마 (Hibernate가 H2용으로 생성하는 DDL과 동일하게 유지)
+create sequence if not exists hello_seq start with 1 increment by 50;
+create sequence if not exists member_seq start with 1 increment by 50;
+create sequence if not exists team_seq start with 1 increment by 50;
+
+create table if not exists hello (
+    id bigint not null,
+    primary key (id)
+);
+
+create table if not exists team (
+    team_id bigint not null,
+    name varchar(255),
+    primary key (team_id)
+);
+
+create table if not exists member (
+    age integer not null,
+    member_id bigint not null,
+    team_id bigint,
+    username varchar(255),
+    primary key (member_id),
+    constraint fk_member_team foreign key (team_id) references team
+);
+
+create table if not exists team_age_stats (
+    age_max integer,
+    age_min integer,
+    age_sum bigint not null,
+    member_count bigint not null,
+    team_id bigint not null,
+    primary key (team_id)
+);
@@ -0,0 +1,80 @@
+package com.spring.querydsl.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+
+public class AdmissionLaneTest {
+
+    @DisplayName("username > teamName > 나머지 순으로 shape 분류")
+    @Test
+    void classify() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        assertThat(SearchShape.of(condition)).isEqualTo(SearchShape.UNBOUNDED);
+
+        condition.setTeamName("teamA");
+        assertThat(SearchShape.of(condition)).isEqualTo(SearchShape.TEAM_SCOPED);
+
+        condition.setUsername("member1");
+        assertThat(SearchShape.of(condition)).isEqualTo(SearchShape.USERNAME_POINT);
+
+        condition.setUsername("");
+        assertThat(SearchShape.of(condition)).isEqualTo(SearchShape.TEAM_SCOPED);
+    }
+
+    @DisplayName("슬롯도 대기열도 없으면 바로 거절")
+    @Test
+    void rejectWhenQueueFull() {
+        AdmissionLane lane = new AdmissionLane(SearchShape.UNBOUNDED, 1, 0, Duration.ofSeconds(10));
+        lane.acquire();
+        assertThat(lane.getActive()).isEqualTo(1);
+
+        assertThatThrownBy(lane::acquire).isInstanceOf(SearchRejectedException.class);
+        assertThat(lane.getRejected()).isEqualTo(1);
+
+        lane.release();
+        assertThat(lane.getActive()).isZero();
+        lane.acquire();
+    }
+
+    @DisplayName("대기 중인 호출은 슬롯이 반납되면 실행되고, 대기열을 넘친 호출은 거절")
+    @Test
+    void queueUntilRelease() throws Exception {
+        AdmissionLane lane = new AdmissionLane(SearchShape.TEAM_SCOPED, 1, 1, Duration.ofSeconds(10));
+        lane.acquire();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> queued = executor.submit(lane::acquire);
+        while (lane.getWaiting() < 1) {
+            Thread.sleep(10);
+        }
+        assertThatThrownBy(lane::acquire).isInstanceOf(SearchRejectedException.class);
+
+        lane.release();
+        queued.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertThat(lane.getRejected()).isEqualTo(1);
+    }
+
+    @DisplayName("대기 시간을 넘기면 거절")
+    @Test
+    void rejectAfterQueueTimeout() {
+        AdmissionLane lane = new AdmissionLane(SearchShape.USERNAME_POINT, 1, 4, Duration.ofMillis(50));
+        lane.acquire();
+
+        assertThatThrownBy(lane::acquire).isInstanceOf(SearchRejectedException.class)
+                .hasMessageContaining("queue timeout");
+        assertThat(lane.getWaiting()).isZero();
+    }
+}
@@ -0,0 +1,86 @@
+package com.spring.querydsl.config.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.spring.querydsl.repository.TableVersions;
+
+/**
+ * 복제 지연은 replica DB의 heartbeat 행을 직접 써서 흉내 낸다.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    static final String HEARTBEAT_TABLE = "create table if not exists replication_heartbeat"
+            + " (id int primary key, ts timestamp, epoch bigint, member_version bigint, team_version bigint)";
+
+    JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1"));
+    JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1"));
+    AtomicReference<TableVersions.Snapshot> versions = new AtomicReference<>(new TableVersions.Snapshot(1, 7, 3));
+    ReplicaLagMonitor monitor = new ReplicaLagMonitor(primary.getDataSource(),
+            Map.of("replica-0", replica.getDataSource()), versions::get, 60_000);
+    ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(List.of("replica-0"), monitor);
+
+    @BeforeEach
+    void before() {
+        primary.execute(HEARTBEAT_TABLE);
+        replica.execute(HEARTBEAT_TABLE);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    @AfterEach
+    void after() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        primary.execute("drop table replication_heartbeat");
+        replica.execute("drop table replication_heartbeat");
+        monitor.close();
+    }
+
+    @DisplayName("heartbeat에 쓰기 직전의 버전을 기록한다")
+    @Test
+    void heartbeatCarriesVersions() {
+        monitor.check();
+
+        assertThat(primary.queryForList("select epoch, member_version, team_version from replication_heartbeat")
+                .get(0)).containsValues(1L, 7L, 3L);
+    }
+
+    @DisplayName("필요한 버전까지 복제되지 않은 replica는 건너뛰고 primary를 쓴다")
+    @Test
+    void routeByReplicatedVersion() {
+        replicate(new TableVersions.Snapshot(1, 5, 3));
+        monitor.check();
+
+        assertThat(routing.determineCurrentLookupKey()).isEqualTo("replica-0");
+        assertThat(lookupKeyAtLeast(new TableVersions.Snapshot(1, 5, 3))).isEqualTo("replica-0");
+        assertThat(lookupKeyAtLeast(new TableVersions.Snapshot(1, 6, 3))).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+        assertThat(lookupKeyAtLeast(new TableVersions.Snapshot(1, 5, 4))).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+        // 재시작 전의 heartbeat
+        assertThat(lookupKeyAtLeast(new TableVersions.Snapshot(2, 0, 0))).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+
+        replicate(new TableVersions.Snapshot(1, 7, 3));
+        monitor.check();
+        assertThat(lookupKeyAtLeast(new TableVersions.Snapshot(1, 6, 3))).isEqualTo("replica-0");
+    }
+
+    private Object lookupKeyAtLeast(TableVersions.Snapshot required) {
+        return TableVersions.readAtLeast(required, routing::determineCurrentLookupKey);
+    }
+
+    private void replicate(TableVersions.Snapshot snapshot) {
+        replica.update("merge into replication_heartbeat (id, ts, epoch, member_version, team_version) key (id)"
+                + " values (1, ?, ?, ?, ?)", new Timestamp(System.currentTimeMillis()),
+                snapshot.epoch(), snapshot.memberVersion(), snapshot.teamVersion());
+    }
+}
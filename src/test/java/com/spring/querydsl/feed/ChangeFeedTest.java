@@ -0,0 +1,189 @@
+package com.spring.querydsl.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class ChangeFeedTest {
+
+    ChangeFeed feed = new ChangeFeed(4, 2, 1024);
+
+    @AfterEach
+    void after() {
+        feed.shutdown();
+    }
+
+    @DisplayName("sequence는 1씩 증가하고 이어 받기 위치 이후만 읽는다")
+    @Test
+    void readAfter() {
+        long start = feed.getHead();
+        feed.record("Member", ChangeType.INSERT, 1L);
+        feed.record("Member", ChangeType.UPDATE, 1L);
+        feed.record("Team", ChangeType.BULK_DELETE, null);
+
+        List<ChangeEvent> events = feed.read(start + 1, 10);
+        assertThat(events).extracting(ChangeEvent::sequence).containsExactly(start + 2, start + 3);
+        assertThat(events).extracting(ChangeEvent::type).containsExactly(ChangeType.UPDATE, ChangeType.BULK_DELETE);
+    }
+
+    @DisplayName("버퍼에서 밀려난 위치나 모르는 위치에서 이어 받으면 null(reset)")
+    @Test
+    void readEvicted() {
+        long start = feed.getHead();
+        for (long id = 1; id <= 6; id++) {
+            feed.record("Member", ChangeType.INSERT, id);
+        }
+
+        assertThat(feed.read(start, 10)).isNull();
+        assertThat(feed.read(start + 2, 10)).hasSize(4);
+        assertThat(feed.read(start + 100, 10)).isNull();
+    }
+
+    @DisplayName("트랜잭션 안의 변경은 커밋 후에만 발행")
+    @Test
+    void publishAfterCommit() {
+        long start = feed.getHead();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            feed.record("Member", ChangeType.INSERT, 1L);
+            feed.record("Member", ChangeType.UPDATE, 1L);
+            assertThat(feed.getHead()).isEqualTo(start);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(feed.getHead()).isEqualTo(start + 2);
+        assertThat(TransactionSynchronizationManager.hasResource(feed)).isFalse();
+    }
+
+    @DisplayName("구독자는 재개 위치 이후 이벤트와 이후 발행되는 이벤트를 순서대로 받는다")
+    @Test
+    void subscribe() throws Exception {
+        long start = feed.getHead();
+        feed.record("Member", ChangeType.INSERT, 1L);
+
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        ChangeFeed.Subscription subscription = feed.subscribe(start, new ChangeFeed.Sink() {
+            @Override
+            public void send(ChangeEvent event) {
+                received.add(event.sequence());
+            }
+
+            @Override
+            public void reset(long sequence) {
+                received.add("reset");
+            }
+        });
+        feed.record("Team", ChangeType.UPDATE, 2L);
+
+        assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo(start + 1);
+        assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo(start + 2);
+        subscription.close();
+    }
+
+    @DisplayName("보내다 막힌 구독자는 다른 구독자를 막지 않고, max-lag를 넘게 밀리면 send가 끝난 뒤 끊긴다")
+    @Test
+    void slowSubscriberIsDisconnected() throws Exception {
+        ChangeFeed feed = new ChangeFeed(16, 2, 2);
+        try {
+            long start = feed.getHead();
+            CountDownLatch sending = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch disconnected = new CountDownLatch(1);
+            feed.subscribe(start, new ChangeFeed.Sink() {
+                @Override
+                public void send(ChangeEvent event) throws IOException {
+                    sending.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+
+                @Override
+                public void reset(long sequence) {
+                }
+
+                @Override
+                public void disconnect() {
+                    disconnected.countDown();
+                }
+            });
+            BlockingQueue<Long> fast = new LinkedBlockingQueue<>();
+            feed.subscribe(start, new ChangeFeed.Sink() {
+                @Override
+                public void send(ChangeEvent event) {
+                    fast.add(event.sequence());
+                }
+
+                @Override
+                public void reset(long sequence) {
+                }
+            });
+
+            feed.record("Member", ChangeType.INSERT, 1L);
+            assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(fast.poll(5, TimeUnit.SECONDS)).isEqualTo(start + 1);
+            // 첫 send에 막힌 구독자는 네 번째 발행에서 max-lag(2)를 넘는다
+            for (long id = 2; id <= 4; id++) {
+                feed.record("Member", ChangeType.INSERT, id);
+                assertThat(fast.poll(5, TimeUnit.SECONDS)).isEqualTo(start + id);
+            }
+            // 막힌 send를 기다리지 않고 끊겼지만, 연결은 send가 끝난 뒤에 닫는다
+            assertThat(disconnected.getCount()).isEqualTo(1);
+            release.countDown();
+            assertThat(disconnected.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            feed.shutdown();
+        }
+    }
+
+    @DisplayName("max-lag보다 오래된 위치에서 이어 받으면 reset부터 받는다")
+    @Test
+    void resumeBeyondMaxLag() throws Exception {
+        ChangeFeed feed = new ChangeFeed(16, 2, 2);
+        try {
+            long start = feed.getHead();
+            for (long id = 1; id <= 4; id++) {
+                feed.record("Member", ChangeType.INSERT, id);
+            }
+
+            BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+            feed.subscribe(start, new ChangeFeed.Sink() {
+                @Override
+                public void send(ChangeEvent event) {
+                    received.add(event.sequence());
+                }
+
+                @Override
+                public void reset(long sequence) {
+                    received.add("reset-" + sequence);
+                }
+            });
+
+            assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo("reset-" + (start + 4));
+            feed.record("Member", ChangeType.INSERT, 5L);
+            assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo(start + 5);
+        } finally {
+            feed.shutdown();
+        }
+    }
+}
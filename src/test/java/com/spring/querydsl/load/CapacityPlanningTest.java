@@ -0,0 +1,73 @@
+package com.spring.querydsl.load;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 용량 산정용 부하 테스트. 기본 test 태스크에서는 제외되며 ./gradlew loadTest 로 실행한다.
+ * <p>
+ * -Dload.members=1000000 -Dload.teams=1000 -Dload.threads=32 -Dload.duration-seconds=60 처럼 규모를 지정한다.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+public class CapacityPlanningTest {
+
+    static final int MEMBERS = Integer.getInteger("load.members", 100_000);
+    static final int TEAMS = Integer.getInteger("load.teams", 100);
+    static final int THREADS = Integer.getInteger("load.threads", 16);
+    static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 30);
+    static final double TEAM_SKEW = Double.parseDouble(System.getProperty("load.team-skew", "1.1"));
+    static final double AGE_SKEW = Double.parseDouble(System.getProperty("load.age-skew", "0.8"));
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Test
+    void searchMemberMix() throws InterruptedException {
+        List<String> teamNames = new MemberDatasetGenerator(context, 42)
+                .generate(TEAMS, MEMBERS, TEAM_SKEW, AGE_SKEW);
+        long maxMemberId = jdbcTemplate.queryForObject("select max(member_id) from member", Long.class);
+
+        ZipfSampler teamSampler = new ZipfSampler(teamNames.size(), TEAM_SKEW);
+        LoadDriver driver = new LoadDriver("http://localhost:" + port, THREADS,
+                Duration.ofSeconds(5), Duration.ofSeconds(DURATION_SECONDS));
+
+        LoadDriver.Report report = driver.run(random -> searchQuery(random, teamNames, teamSampler, maxMemberId));
+
+        report.print("GET /members mix (" + MEMBERS + " members, " + TEAMS + " teams, " + THREADS + " threads)",
+                System.out);
+    }
+
+    // username 단건 40%, 팀 범위 30%, 팀 + 나이 범위 20%, 조건 없음 10%
+    static String searchQuery(Random random, List<String> teamNames, ZipfSampler teamSampler, long maxMemberId) {
+        int shape = random.nextInt(10);
+        String team = teamNames.get(teamSampler.next(random));
+        if (shape < 4) {
+            return "/members?username=member" + (1 + (long) (random.nextDouble() * maxMemberId));
+        }
+        if (shape < 7) {
+            return "/members?teamName=" + team + "&size=20";
+        }
+        if (shape < 9) {
+            int ageGoe = 18 + random.nextInt(40);
+            return "/members?teamName=" + team + "&ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 10) + "&size=20";
+        }
+        return "/members?page=" + random.nextInt(100) + "&size=20";
+    }
+}
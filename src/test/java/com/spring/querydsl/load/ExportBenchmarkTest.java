@@ -0,0 +1,79 @@
+package com.spring.querydsl.load;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.repository.MemberExporter;
+import com.spring.querydsl.repository.MemberRepository;
+
+/**
+ * 조건 없는 전체 조회를 한 번의 search로 읽을 때와 MemberExporter로 chunk 병렬 조회할 때의 시간 비교.
+ * 각 방식을 한 번 예열한 뒤 RUNS번 실행해 중앙값을 출력한다.
+ */
+@Tag("load")
+@SpringBootTest(properties = "member.index.enabled=false")
+public class ExportBenchmarkTest {
+
+    static final int MEMBERS = Integer.getInteger("load.members", 1_000_000);
+    static final int TEAMS = Integer.getInteger("load.teams", 1_000);
+    static final int RUNS = Integer.getInteger("load.runs", 5);
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberExporter memberExporter;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void exportVersusSearch() {
+        new MemberDatasetGenerator(context, 29).generate(TEAMS, MEMBERS, 1.1, 0.8);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+
+        long search = median(() -> readOnlyTx.execute(status -> memberRepository.search(condition)).size());
+        long export = median(() -> {
+            LongAdder rows = new LongAdder();
+            memberExporter.export(condition, dto -> rows.increment());
+            return rows.sum();
+        });
+
+        System.out.printf("export all of %d members (median of %d runs)%n", MEMBERS, RUNS);
+        System.out.printf("search         : %6d ms%n", search);
+        System.out.printf("MemberExporter : %6d ms%n", export);
+        System.out.printf("speedup        : %6.2fx%n", (double) search / Math.max(export, 1));
+    }
+
+    private long median(LongSupplier work) {
+        // 예열하면서 두 방식이 같은 행 수를 읽는지 확인
+        long expected = memberRepository.count();
+        long rows = work.getAsLong();
+        if (rows != expected) {
+            throw new IllegalStateException("expected " + expected + " rows but got " + rows);
+        }
+        long[] elapsed = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            work.getAsLong();
+            elapsed[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(elapsed);
+        return elapsed[RUNS / 2];
+    }
+}
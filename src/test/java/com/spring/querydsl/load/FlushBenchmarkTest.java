@@ -0,0 +1,117 @@
+package com.spring.querydsl.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import com.spring.querydsl.entity.Member;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * 회원 10만 명을 읽어 1%를 수정한 뒤 flush 하는 비용(CPU 시간, DB 왕복 수)을 측정한다.
+ * <p>
+ * dirty tracking은 빌드 시점에 정해지므로 ./gradlew loadTest 와 ./gradlew loadTest -Penhance 결과를 비교하고,
+ * JDBC 배치는 같은 실행 안에서 세션 배치 크기를 1로 낮춘 경우와 비교한다.
+ */
+@Tag("load")
+@SpringBootTest
+public class FlushBenchmarkTest {
+
+    static final int MEMBERS = Integer.getInteger("load.members", 100_000);
+    static final int MODIFY_EVERY = 100;
+    static final int ROUNDS = Integer.getInteger("load.rounds", 5);
+
+    static final LongAdder roundTrips = new LongAdder();
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TestConfiguration
+    static class RoundTripCounter {
+
+        // 배치는 executeBatch 한 번이 한 번의 왕복
+        @Bean
+        SimpleJdbcEventListener roundTripListener() {
+            return new SimpleJdbcEventListener() {
+                @Override
+                public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos,
+                        SQLException e) {
+                    roundTrips.increment();
+                }
+            };
+        }
+    }
+
+    @Test
+    void flushOnePercentOfLoadedMembers() {
+        new MemberDatasetGenerator(context, 11).generate(100, MEMBERS, 1.1, 0.8);
+        boolean enhanced = SelfDirtinessTracker.class.isAssignableFrom(Member.class);
+        System.out.printf("flush %d of %d members, dirty tracking: %s%n",
+                MEMBERS / MODIFY_EVERY, MEMBERS, enhanced ? "bytecode enhanced" : "snapshot comparison");
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int batchSize : List.of(1, 50)) {
+            // 첫 라운드는 워밍업
+            measure(tx, batchSize);
+            long cpuNanos = 0;
+            long trips = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long[] result = measure(tx, batchSize);
+                cpuNanos += result[0];
+                trips += result[1];
+            }
+            System.out.printf("jdbc batch size %2d : flush cpu %7.1f ms, round trips %6d%n",
+                    batchSize, cpuNanos / 1e6 / ROUNDS, trips / ROUNDS);
+        }
+    }
+
+    /**
+     * @return flush에 쓴 CPU 시간(ns), flush 중 DB 왕복 수
+     */
+    private long[] measure(TransactionTemplate tx, int batchSize) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long[] result = new long[2];
+        tx.executeWithoutResult(status -> {
+            em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            for (int i = 0; i < members.size(); i += MODIFY_EVERY) {
+                Member member = members.get(i);
+                member.setAge(member.getAge() + 1);
+            }
+
+            long trips = roundTrips.sum();
+            long cpu = threads.getCurrentThreadCpuTime();
+            em.flush();
+            result[0] = threads.getCurrentThreadCpuTime() - cpu;
+            result[1] = roundTrips.sum() - trips;
+
+            // 같은 데이터로 반복 측정
+            status.setRollbackOnly();
+        });
+        return result;
+    }
+}
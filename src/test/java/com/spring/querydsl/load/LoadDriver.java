@@ -0,0 +1,95 @@
+package com.spring.querydsl.load;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * closed-loop 부하 발생기. 각 스레드가 응답을 받으면 바로 다음 요청을 보낸다.
+ * 요청 경로는 queryMix가 만들고, 지연 시간은 HDR 히스토그램에 마이크로초 단위로 기록한다.
+ */
+public class LoadDriver {
+
+    private final String baseUrl;
+    private final int threads;
+    private final Duration warmup;
+    private final Duration duration;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public LoadDriver(String baseUrl, int threads, Duration warmup, Duration duration) {
+        this.baseUrl = baseUrl;
+        this.threads = threads;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    public Report run(Function<Random, String> queryMix) throws InterruptedException {
+        run(queryMix, warmup, new ConcurrentHistogram(3), new LongAdder());
+
+        Histogram histogram = new ConcurrentHistogram(3);
+        LongAdder errors = new LongAdder();
+        long elapsed = run(queryMix, duration, histogram, errors);
+        return new Report(histogram, errors.sum(), elapsed);
+    }
+
+    private long run(Function<Random, String> queryMix, Duration runFor, Histogram histogram, LongAdder errors)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long started = System.nanoTime();
+        long deadline = started + runFor.toNanos();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            executor.execute(() -> {
+                Random random = new Random(seed);
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + queryMix.apply(random))).build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            errors.increment();
+                        }
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                    histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(runFor.toSeconds() + 60, TimeUnit.SECONDS);
+        return System.nanoTime() - started;
+    }
+
+    public record Report(Histogram histogram, long errors, long elapsedNanos) {
+
+        public double throughput() {
+            return histogram.getTotalCount() / (elapsedNanos / 1e9);
+        }
+
+        public void print(String title, PrintStream out) {
+            out.printf("== %s ==%n", title);
+            out.printf("requests=%d errors=%d throughput=%.1f req/s%n", histogram.getTotalCount(), errors, throughput());
+            for (double percentile : List.of(50.0, 90.0, 99.0, 99.9)) {
+                out.printf("p%-5s %8.2f ms%n", percentile, histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            out.printf("max    %8.2f ms%n", histogram.getMaxValue() / 1000.0);
+        }
+    }
+}
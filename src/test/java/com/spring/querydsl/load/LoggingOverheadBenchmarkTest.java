@@ -0,0 +1,69 @@
+package com.spring.querydsl.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.spring.querydsl.QuerydslApplication;
+
+/**
+ * 로깅 설정에 따른 GET /members 처리량 비교.
+ * <p>
+ * off: 요청 스레드에서 동기로 쓰고 SQL 로그를 모두 남기는 설정(logback-sync-benchmark.xml).
+ * on: logback-spring.xml의 AsyncAppender + SamplingTurboFilter, SQL 로그는 load.sql-sample-rate(기본 1%)만 남긴다.
+ * 두 경우 모두 SQL이 실행되도록 검색 인덱스를 끄고, 같은 seed의 데이터와 조회 조건 순서를 쓴다.
+ */
+@Tag("load")
+public class LoggingOverheadBenchmarkTest {
+
+    static final int MEMBERS = Integer.getInteger("load.members", 100_000);
+    static final int TEAMS = Integer.getInteger("load.teams", 100);
+    static final int THREADS = Integer.getInteger("load.threads", 16);
+    static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 20);
+    static final String SQL_SAMPLE_RATE = System.getProperty("load.sql-sample-rate", "0.01");
+
+    @Test
+    void asyncSamplingVersusSynchronous() throws InterruptedException {
+        Map<String, LoadDriver.Report> reports = new LinkedHashMap<>();
+        reports.put("off", run("off",
+                "logging.config=classpath:logback-sync-benchmark.xml"));
+        reports.put("on", run("on",
+                "logging.sql.sample-rate=" + SQL_SAMPLE_RATE));
+
+        reports.forEach((mode, report) -> report.print("GET /members mix, async/sampling logging " + mode
+                + " (" + MEMBERS + " members, " + THREADS + " threads)", System.out));
+        assertThat(reports.get("on").throughput()).isGreaterThan(reports.get("off").throughput());
+    }
+
+    private static LoadDriver.Report run(String mode, String loggingProperty) throws InterruptedException {
+        List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=jdbc:h2:mem:logging_bench_" + mode + ";DB_CLOSE_DELAY=-1",
+                "member.index.enabled=false",
+                loggingProperty));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .properties(properties.toArray(String[]::new))
+                .run()) {
+            List<String> teamNames = new MemberDatasetGenerator(context, 31).generate(TEAMS, MEMBERS, 1.1, 0.8);
+            long maxMemberId = context.getBean(JdbcTemplate.class)
+                    .queryForObject("select max(member_id) from member", Long.class);
+            ZipfSampler teamSampler = new ZipfSampler(teamNames.size(), 1.1);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadDriver driver = new LoadDriver("http://localhost:" + port, THREADS,
+                    Duration.ofSeconds(5), Duration.ofSeconds(DURATION_SECONDS));
+            return driver.run(random -> CapacityPlanningTest.searchQuery(random, teamNames, teamSampler, maxMemberId));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.spring.querydsl.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.spring.querydsl.repository.MemberChangeTracker;
+import com.spring.querydsl.repository.TableVersions;
+import com.spring.querydsl.stats.TeamAgeStatsSql;
+
+/**
+ * 대량의 Team/Member를 JDBC 배치로 적재한다.
+ * <p>
+ * 팀 소속과 나이는 Zipf 분포로 치우치게 만든다. 적재 후 시퀀스를 최대 id 뒤로 옮겨
+ * 이후 JPA로 저장하는 엔티티와 id가 겹치지 않게 한다.
+ * <p>
+ * 엔티티 이벤트를 거치지 않으므로 적재 후 엔티티 변경 시 갱신되던 것들을 직접 맞춘다.
+ * 팀 나이 집계를 다시 계산하고, TableVersions를 올려 ETag 캐시를 무효화하고,
+ * MemberChangeTracker로 MemberSearchIndex와 (샤딩 모드면) ShardedMemberStore를 다시 적재한다.
+ */
+public class MemberDatasetGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberDatasetGenerator.class);
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int MIN_AGE = 18;
+    private static final int AGE_RANGE = 60;
+
+    private final ApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random;
+
+    public MemberDatasetGenerator(ApplicationContext context, long seed) {
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param teamSkew 팀 분포의 Zipf 지수 (0이면 균등)
+     * @param ageSkew 나이 분포의 Zipf 지수 (0이면 균등)
+     * @return 생성한 팀 이름 목록 (인덱스 0이 가장 큰 팀)
+     */
+    public List<String> generate(int teamCount, int memberCount, double teamSkew, double ageSkew) {
+        long teamBase = nextId("team");
+        List<String> teamNames = new ArrayList<>(teamCount);
+        List<Object[]> teams = new ArrayList<>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            String name = "team" + (teamBase + i);
+            teamNames.add(name);
+            teams.add(new Object[] { teamBase + i, name });
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+        restartSequence("team_seq", teamBase + teamCount);
+
+        ZipfSampler teamSampler = new ZipfSampler(teamCount, teamSkew);
+        ZipfSampler ageSampler = new ZipfSampler(AGE_RANGE, ageSkew);
+        long memberBase = nextId("member");
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < memberCount; i++) {
+            long id = memberBase + i;
+            batch.add(new Object[] {
+                    id,
+                    "member" + id,
+                    MIN_AGE + ageSampler.next(random),
+                    teamBase + teamSampler.next(random) });
+            if (batch.size() == BATCH_SIZE) {
+                insertMembers(batch);
+                log.info("generated {} / {} members", i + 1, memberCount);
+            }
+        }
+        insertMembers(batch);
+        restartSequence("member_seq", memberBase + memberCount);
+        // JDBC로 직접 넣었으므로 엔티티 이벤트로 갱신되는 팀 나이 집계를 다시 계산
+        jdbcTemplate.update(TeamAgeStatsSql.RECOMPUTE_ALL);
+        invalidateCaches();
+        return teamNames;
+    }
+
+    private void invalidateCaches() {
+        TableVersions tableVersions = context.getBean(TableVersions.class);
+        tableVersions.bumpTeam();
+        tableVersions.bumpMember();
+        context.getBean(MemberChangeTracker.class).reloadAll();
+    }
+
+    private void insertMembers(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)", batch);
+            batch.clear();
+        }
+    }
+
+    private long nextId(String table) {
+        Long max = jdbcTemplate.queryForObject("select max(" + table + "_id) from " + table, Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    // pooled optimizer(increment 50)가 이미 나눠준 구간과 겹치지 않도록 여유를 둔다
+    private void restartSequence(String sequence, long nextId) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (nextId + 100));
+    }
+}
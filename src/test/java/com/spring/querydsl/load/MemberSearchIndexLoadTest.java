@@ -0,0 +1,184 @@
+package com.spring.querydsl.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.repository.MemberRepository;
+import com.spring.querydsl.repository.MemberSearchIndex;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * 같은 조회 조건 순서로 MemberRepository.search를 인덱스가 최신일 때(메모리), 회원 나이를 계속 바꾸는 쓰기가 함께 돌 때,
+ * stale일 때(DB fallback) 각각 실행해 지연 시간 분포를 비교한다. 쓰기 중에도 인덱스는 바뀐 행만 반영하므로
+ * 대부분의 조회를 메모리에서 응답해야 한다.
+ */
+@Tag("load")
+@SpringBootTest
+public class MemberSearchIndexLoadTest {
+
+    static final int MEMBERS = Integer.getInteger("load.members", 1_000_000);
+    static final int TEAMS = Integer.getInteger("load.teams", 1_000);
+    static final int THREADS = Integer.getInteger("load.threads", 8);
+    static final int QUERIES = Integer.getInteger("load.queries", 2_000);
+    static final double TEAM_SKEW = Double.parseDouble(System.getProperty("load.team-skew", "1.1"));
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    void indexVersusDatabase() throws InterruptedException {
+        List<String> teamNames = new MemberDatasetGenerator(context, 26).generate(TEAMS, MEMBERS, TEAM_SKEW, 0.8);
+        long maxMemberId = jdbcTemplate.queryForObject("select max(member_id) from member", Long.class);
+        ZipfSampler teamSampler = new ZipfSampler(teamNames.size(), TEAM_SKEW);
+
+        MemberSearchCondition probe = new MemberSearchCondition();
+        probe.setUsername("member1");
+        // 생성기가 인덱스를 다시 적재했으므로 여기서는 메모리에서 응답
+        assertThat(memberSearchIndex.search(probe)).isPresent();
+        Histogram index = run(teamNames, teamSampler, maxMemberId);
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        LongAdder writes = new LongAdder();
+        LongAdder probes = new LongAdder();
+        LongAdder served = new LongAdder();
+        Thread writer = new Thread(() -> write(writing, writes, maxMemberId), "member-age-writer");
+        Thread prober = new Thread(() -> {
+            while (writing.get()) {
+                probes.increment();
+                if (memberSearchIndex.search(probe).isPresent()) {
+                    served.increment();
+                }
+            }
+        }, "member-index-prober");
+        writer.start();
+        prober.start();
+        Histogram underWrites = run(teamNames, teamSampler, maxMemberId);
+        writing.set(false);
+        writer.join();
+        prober.join();
+
+        memberSearchIndex.markStale();
+        assertThat(memberSearchIndex.search(probe)).isEmpty();
+        Histogram database = run(teamNames, teamSampler, maxMemberId);
+
+        double servedRatio = (double) served.sum() / probes.sum();
+        System.out.printf("MemberRepository.search (%d members, %d teams, %d threads, %d queries)%n",
+                MEMBERS, TEAMS, THREADS, QUERIES);
+        print("index", index);
+        print("writes", underWrites);
+        print("database", database);
+        System.out.printf("%d writes during measurement, index served %.1f%% of probes%n",
+                writes.sum(), servedRatio * 100);
+        assertThat(index.getValueAtPercentile(99.0)).isLessThan(database.getValueAtPercentile(99.0));
+        assertThat(servedRatio).isGreaterThan(0.5);
+    }
+
+    // 임의의 회원 나이를 하나씩 바꾸는 트랜잭션을 계속 커밋한다
+    private void write(AtomicBoolean writing, LongAdder writes, long maxMemberId) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Random random = new Random(-1);
+        while (writing.get()) {
+            long id = 1 + (long) (random.nextDouble() * maxMemberId);
+            tx.executeWithoutResult(status -> {
+                Member member = em.find(Member.class, id);
+                if (member != null) {
+                    member.setAge(18 + random.nextInt(60));
+                }
+            });
+            writes.increment();
+        }
+    }
+
+    private Histogram run(List<String> teamNames, ZipfSampler teamSampler, long maxMemberId)
+            throws InterruptedException {
+        Histogram histogram = new ConcurrentHistogram(3);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            // 두 경로가 같은 조건 순서를 받도록 스레드마다 같은 seed 사용
+            long seed = t;
+            executor.execute(() -> {
+                Random random = new Random(seed);
+                // 처음 10%는 예열로 기록하지 않는다
+                int warmup = QUERIES / THREADS / 10;
+                for (int i = 0; i < QUERIES / THREADS; i++) {
+                    MemberSearchCondition condition = condition(random, teamNames, teamSampler, maxMemberId);
+                    long start = System.nanoTime();
+                    memberRepository.search(condition);
+                    if (i >= warmup) {
+                        histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        return histogram;
+    }
+
+    // CapacityPlanningTest와 같은 비율: username 단건 40%, 팀 범위 30%, 팀 + 나이 범위 20%, 나이 범위만 10%
+    static MemberSearchCondition condition(Random random, List<String> teamNames, ZipfSampler teamSampler,
+            long maxMemberId) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        int shape = random.nextInt(10);
+        String team = teamNames.get(teamSampler.next(random));
+        int ageGoe = 18 + random.nextInt(40);
+        if (shape < 4) {
+            condition.setUsername("member" + (1 + (long) (random.nextDouble() * maxMemberId)));
+        } else if (shape < 7) {
+            condition.setTeamName(team);
+        } else if (shape < 9) {
+            condition.setTeamName(team);
+            condition.setAgeGoe(ageGoe);
+            condition.setAgeLoe(ageGoe + 10);
+        } else {
+            condition.setAgeGoe(ageGoe);
+            condition.setAgeLoe(ageGoe);
+        }
+        return condition;
+    }
+
+    private static void print(String title, Histogram histogram) {
+        System.out.printf("%-8s p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  max %8.2f ms%n", title,
+                histogram.getValueAtPercentile(50.0) / 1000.0,
+                histogram.getValueAtPercentile(99.0) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,128 @@
+package com.spring.querydsl.load;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * 느린 클라이언트가 대량 결과를 받을 때 /members(페이지 전체 적재) 와 /members/stream(행 단위 스트리밍)의
+ * 최대 스레드 수와 힙 사용량을 비교한다. 같은 JVM 안에서 측정하므로 클라이언트 스레드도 포함된 상대 비교다.
+ * <p>
+ * 두 경로가 같은 행 수를 보내도록 최대 페이지 크기를 회원 수 이상으로 올리고, 같은 조건 요청이 하나로 합쳐지지
+ * 않도록 클라이언트마다 결과는 같지만 값이 다른 ageLoe를 붙인다. 전체 조회 동시 실행 제한도 충분히 넓힌다.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+        "spring.data.web.pageable.max-page-size=10000000",
+        "member.index.enabled=false",
+        "member.admission.unbounded.max-concurrent=8",
+        "member.admission.unbounded.max-queued=1000",
+        "member.admission.unbounded.queue-timeout=30m",
+        "member.admission.unbounded.statement-timeout=30m",
+        "spring.mvc.async.request-timeout=30m" })
+public class ReactiveStreamingTest {
+
+    static final int MEMBERS = Integer.getInteger("load.members", 100_000);
+    static final int TEAMS = Integer.getInteger("load.teams", 100);
+    static final int CLIENTS = Integer.getInteger("load.clients", 64);
+    // 클라이언트가 8KB를 읽을 때마다 쉬는 시간
+    static final long READ_PAUSE_MS = Long.getLong("load.read-pause-ms", 5);
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Test
+    void blockingVersusStreaming() throws Exception {
+        new MemberDatasetGenerator(context, 42).generate(TEAMS, MEMBERS, 1.1, 0.8);
+
+        measure("GET /members?size=" + MEMBERS, "/members?page=0&size=" + MEMBERS + "&ageLoe=");
+        measure("GET /members/stream", "/members/stream?ageLoe=");
+    }
+
+    private void measure(String label, String path) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        threads.resetPeakThreadCount();
+        long baseHeap = memory.getHeapMemoryUsage().getUsed();
+
+        AtomicLong peakHeap = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(
+                memory.getHeapMemoryUsage().getUsed(), Math::max), 0, 50, TimeUnit.MILLISECONDS);
+
+        HttpClient client = HttpClient.newHttpClient();
+        AtomicLong bytes = new AtomicLong();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        long start = System.nanoTime();
+        AtomicLong rows = new AtomicLong();
+        for (int i = 0; i < CLIENTS; i++) {
+            // 나이는 모두 1000 미만이므로 결과는 같다
+            String uri = "http://localhost:" + port + path + (1000 + i);
+            executor.execute(() -> {
+                try {
+                    HttpResponse<InputStream> response = client.send(
+                            HttpRequest.newBuilder(URI.create(uri)).build(),
+                            HttpResponse.BodyHandlers.ofInputStream());
+                    if (response.statusCode() != 200) {
+                        failures.incrementAndGet();
+                    }
+                    try (InputStream body = response.body()) {
+                        byte[] buffer = new byte[8192];
+                        int read;
+                        while ((read = body.read(buffer)) != -1) {
+                            bytes.addAndGet(read);
+                            // 두 응답 모두 회원 하나가 JSON 객체 하나
+                            rows.addAndGet(count(buffer, read, '{'));
+                            Thread.sleep(READ_PAUSE_MS);
+                        }
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.MINUTES);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        sampler.shutdownNow();
+
+        System.out.printf(
+                "%s clients=%d elapsed=%dms rows/client=%d bytes=%d failures=%d peakThreads=%d peakHeapDelta=%dMB%n",
+                label, CLIENTS, elapsedMs, rows.get() / CLIENTS, bytes.get(), failures.get(),
+                threads.getPeakThreadCount(), (peakHeap.get() - baseHeap) / (1024 * 1024));
+    }
+
+    private static int count(byte[] buffer, int length, char c) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,140 @@
+package com.spring.querydsl.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.querydsl.QuerydslApplication;
+import com.spring.querydsl.config.routing.RoutingDataSourceConfig.RoutingTargets;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.repository.MemberRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * replica 수에 따른 읽기 처리량 비교. 각 풀의 커넥션 수를 작게 두어 풀 용량이 병목이 되게 한다.
+ * <p>
+ * replica 수마다 datasource.routing.enabled=true 로 애플리케이션을 띄워, 실제 빈 구성
+ * (JpaTransactionManager → LazyConnectionDataSourceProxy → ReplicaRoutingDataSource)을 거쳐
+ * MemberRepository.search / findByUsername을 호출한다. 로컬 H2에는 복제가 없으므로 모든 풀이 같은 인메모리 DB를 가리킨다.
+ */
+@Tag("load")
+public class ReadReplicaScalingTest {
+
+    static final String URL = "jdbc:h2:mem:routing_bench_%d;DB_CLOSE_DELAY=-1";
+    static final int MEMBERS = Integer.getInteger("load.members", 10_000);
+    static final int TEAMS = Integer.getInteger("load.teams", 100);
+    static final int THREADS = Integer.getInteger("load.threads", 16);
+    static final int POOL_SIZE = 2;
+    static final long DURATION_MS = Long.getLong("load.duration-ms", 5_000);
+
+    @Test
+    void readsScaleWithReplicas() throws Exception {
+        for (int replicas : List.of(0, 1, 2, 4)) {
+            try (ConfigurableApplicationContext context = start(replicas)) {
+                List<String> teamNames = new MemberDatasetGenerator(context, 38).generate(TEAMS, MEMBERS, 1.1, 0.8);
+                assertRouting(context, replicas);
+                System.out.printf("replicas=%d throughput=%.1f reads/s%n", replicas, measure(context, teamNames));
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(int replicaCount) {
+        String url = String.format(URL, replicaCount);
+        List<String> properties = new ArrayList<>(List.of(
+                "datasource.routing.enabled=true",
+                "datasource.routing.primary.url=" + url,
+                "datasource.routing.primary.maximum-pool-size=" + POOL_SIZE,
+                // 측정 중 heartbeat 조회가 replica 커넥션을 빌리지 않도록 기동 시 한 번만 확인
+                "datasource.routing.heartbeat-interval-ms=3600000",
+                "member.index.enabled=false"));
+        for (int i = 0; i < replicaCount; i++) {
+            properties.add("datasource.routing.replicas[" + i + "].url=" + url);
+            properties.add("datasource.routing.replicas[" + i + "].maximum-pool-size=" + POOL_SIZE);
+        }
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties.toArray(String[]::new))
+                .run();
+    }
+
+    /**
+     * 트랜잭션 안에서 커넥션을 쥐고 있는 풀을 보고 라우팅을 확인한다.
+     * 읽기 전용은 replica 풀(없으면 primary), 쓰기는 primary 풀에서 커넥션을 얻어야 한다.
+     */
+    private static void assertRouting(ConfigurableApplicationContext context, int replicaCount) {
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        assertThat(transactionManager).isInstanceOf(JpaTransactionManager.class);
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        RoutingTargets targets = context.getBean(RoutingTargets.class);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            memberRepository.search(new MemberSearchCondition());
+            assertHeldBy(targets, replicaCount > 0);
+        });
+        readOnly.executeWithoutResult(status -> {
+            memberRepository.findByUsername("member1");
+            assertHeldBy(targets, replicaCount > 0);
+        });
+
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        readWrite.executeWithoutResult(status -> {
+            memberRepository.saveAndFlush(new Member("routing-check"));
+            assertHeldBy(targets, false);
+            status.setRollbackOnly();
+        });
+    }
+
+    private static void assertHeldBy(RoutingTargets targets, boolean replica) {
+        int replicaActive = targets.replicas().values().stream()
+                .mapToInt(pool -> pool.getHikariPoolMXBean().getActiveConnections())
+                .sum();
+        assertThat(targets.primary().getHikariPoolMXBean().getActiveConnections()).isEqualTo(replica ? 0 : 1);
+        assertThat(replicaActive).isEqualTo(replica ? 1 : 0);
+    }
+
+    // username 단건과 팀 범위 조회를 반씩 섞는다
+    private static double measure(ConfigurableApplicationContext context, List<String> teamNames)
+            throws InterruptedException {
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        LongAdder reads = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.currentTimeMillis() + DURATION_MS;
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            executor.execute(() -> {
+                Random random = new Random(seed);
+                while (System.currentTimeMillis() < deadline) {
+                    if (random.nextBoolean()) {
+                        memberRepository.findByUsername("member" + (1 + random.nextInt(MEMBERS)));
+                    } else {
+                        MemberSearchCondition condition = new MemberSearchCondition();
+                        condition.setTeamName(teamNames.get(random.nextInt(teamNames.size())));
+                        memberRepository.search(condition);
+                    }
+                    reads.increment();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(DURATION_MS + 60_000, TimeUnit.MILLISECONDS);
+        return reads.sum() / (DURATION_MS / 1000.0);
+    }
+}
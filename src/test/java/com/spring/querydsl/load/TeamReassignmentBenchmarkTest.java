@@ -0,0 +1,97 @@
+package com.spring.querydsl.load;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.MemberRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * 회원 10만 명인 팀으로 이동할 때의 비용 비교.
+ * 컬렉션을 초기화하는 기존 방식 / 컬렉션을 건드리지 않는 changeTeam / 벌크 update
+ */
+@Tag("load")
+@SpringBootTest
+public class TeamReassignmentBenchmarkTest {
+
+    static final int TEAM_SIZE = Integer.getInteger("load.team-size", 100_000);
+    static final int MOVES = 100;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void reassignIntoLargeTeam() {
+        MemberDatasetGenerator generator = new MemberDatasetGenerator(context, 7);
+        String largeTeam = generator.generate(1, TEAM_SIZE, 0, 0).get(0);
+        String smallTeam = generator.generate(1, MOVES, 0, 0).get(0);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // 롤백하며 같은 데이터로 각 방식을 측정
+        long initializing = measure(tx, () -> moveEach(smallTeam, largeTeam, true));
+        long lazy = measure(tx, () -> moveEach(smallTeam, largeTeam, false));
+        long bulk = measure(tx, () -> {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName(smallTeam);
+            memberRepository.changeTeam(condition, findTeam(largeTeam));
+        });
+
+        System.out.printf("move %d members into a team of %d%n", MOVES, TEAM_SIZE);
+        System.out.printf("initialize Team.members : %6d ms%n", initializing);
+        System.out.printf("changeTeam (lazy)       : %6d ms%n", lazy);
+        System.out.printf("bulk changeTeam         : %6d ms%n", bulk);
+    }
+
+    private void moveEach(String from, String to, boolean initializeCollection) {
+        Team target = findTeam(to);
+        List<Member> members = em.createQuery("select m from Member m where m.team.name = :name", Member.class)
+                .setParameter("name", from)
+                .getResultList();
+        for (Member member : members) {
+            if (initializeCollection) {
+                // 변경 전 changeTeam의 동작: team.getMembers().add(this)가 컬렉션을 로딩
+                target.getMembers().size();
+                em.detach(target);
+                target = findTeam(to);
+            }
+            member.changeTeam(target);
+        }
+        em.flush();
+    }
+
+    private Team findTeam(String name) {
+        return em.createQuery("select t from Team t where t.name = :name", Team.class)
+                .setParameter("name", name)
+                .getSingleResult();
+    }
+
+    private static long measure(TransactionTemplate tx, Runnable work) {
+        long start = System.nanoTime();
+        tx.executeWithoutResult(status -> {
+            work.run();
+            status.setRollbackOnly();
+        });
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,30 @@
+package com.spring.querydsl.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 0 ~ n-1 순위를 Zipf 분포(지수 s)로 뽑는다. 0순위가 가장 자주 나온다.
+ */
+public class ZipfSampler {
+
+    private final double[] cdf;
+
+    public ZipfSampler(int n, double s) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, s);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= sum;
+        }
+    }
+
+    public int next(Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index < 0 ? -index - 1 : index;
+        return Math.min(rank, cdf.length - 1);
+    }
+}
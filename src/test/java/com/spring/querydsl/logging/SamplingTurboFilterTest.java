@@ -0,0 +1,118 @@
+package com.spring.querydsl.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+public class SamplingTurboFilterTest {
+
+    static final int EVENTS = 200_000;
+    static final double RATE = 0.1;
+
+    LoggerContext context;
+    ListAppender<ILoggingEvent> appender;
+
+    @BeforeEach
+    void setUp() {
+        context = new LoggerContext();
+        SamplingTurboFilter filter = new SamplingTurboFilter();
+        filter.addRecheckedLoggerName("org.hibernate.SQL");
+        filter.addLoggerName("p6spy");
+        filter.setRate(RATE);
+        filter.setContext(context);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.DEBUG);
+        root.addAppender(appender);
+    }
+
+    @DisplayName("확인 후 통과할 때만 로깅하면(p6spy) rate 비율만 남는다")
+    @Test
+    void guardedCall() {
+        Logger logger = context.getLogger("p6spy");
+        for (int i = 0; i < EVENTS; i++) {
+            if (logger.isInfoEnabled()) {
+                logger.info("select {}", i);
+            }
+        }
+
+        assertRate(appender.list.size());
+    }
+
+    @DisplayName("확인 후 결과와 상관없이 로깅을 호출해도 확인에서 버린 이벤트는 남지 않는다")
+    @Test
+    void checkThenAlwaysLog() {
+        Logger logger = context.getLogger("p6spy");
+        int checked = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            if (logger.isInfoEnabled()) {
+                checked++;
+            }
+            logger.info("select {}", i);
+        }
+
+        assertRate(appender.list.size());
+        assertThat(appender.list).hasSize(checked);
+    }
+
+    @DisplayName("Hibernate SqlStatementLogger 순서: isDebugEnabled() 후 항상 debug(), JBoss 브리지가 debug() 안에서 다시 확인")
+    @Test
+    void hibernateSequence() {
+        Logger logger = context.getLogger("org.hibernate.SQL");
+        int formatted = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            // SqlStatementLogger.logStatement
+            if (logger.isDebugEnabled()) {
+                formatted++;
+            }
+            jbossDebug(logger, "select " + i);
+        }
+
+        // 두 번째 확인이 다시 샘플링하면 2r - r^2 이 된다
+        assertRate(appender.list.size());
+        assertThat(appender.list).hasSize(formatted);
+    }
+
+    @DisplayName("대상이 아닌 로거와 WARN 이상은 샘플링하지 않는다")
+    @Test
+    void passThrough() {
+        Logger other = context.getLogger("com.spring.querydsl");
+        Logger sql = context.getLogger("org.hibernate.SQL");
+        for (int i = 0; i < 1_000; i++) {
+            if (other.isDebugEnabled()) {
+                other.debug("other {}", i);
+            }
+            if (sql.isWarnEnabled()) {
+                sql.warn("warn {}", i);
+            }
+        }
+
+        assertThat(appender.list).hasSize(2_000);
+    }
+
+    // JBoss Logging Slf4jLocationAwareLogger.doLog: 레벨을 다시 확인한 뒤 로깅
+    private static void jbossDebug(Logger logger, String message) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(message);
+        }
+    }
+
+    private void assertRate(int logged) {
+        double effective = (double) logged / EVENTS;
+        System.out.printf("rate=%.3f effective=%.4f%n", RATE, effective);
+        assertThat(effective).isBetween(RATE * 0.9, RATE * 1.1);
+    }
+}
@@ -0,0 +1,181 @@
+package com.spring.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * chunk는 별도 트랜잭션에서 읽히므로 데이터를 커밋해 두고 확인한다.
+ * searchByIdRange 호출 수를 세기 위해 MemberRepository를 감싼 프록시로 MemberExporter를 직접 만든다.
+ */
+@SpringBootTest
+public class MemberExporterTest {
+
+    static final int MEMBERS = 20;
+    static final int PARALLELISM = 3;
+    static final long CHUNK_SIZE = 3;
+    static final int MAX_BUFFERED_CHUNKS = 2;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    List<Long> memberIds = new ArrayList<>();
+    AtomicInteger chunkCalls = new AtomicInteger();
+    MemberExporter exporter;
+
+    @BeforeEach
+    void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < MEMBERS; i++) {
+                Member member = new Member("member" + i, i, i % 2 == 0 ? teamA : teamB);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        if (exporter != null) {
+            exporter.shutdown();
+        }
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+        jdbcTemplate.update("delete from team_age_stats");
+    }
+
+    @DisplayName("여러 chunk에 걸친 회원이 id 순서대로 sink에 전달된다")
+    @Test
+    void exportInIdOrder() {
+        exporter = exporter(fromId -> false);
+        List<Long> exported = new ArrayList<>();
+
+        long count = exporter.export(new MemberSearchCondition(), dto -> exported.add(dto.getMemberId()));
+
+        assertThat(count).isEqualTo(MEMBERS);
+        assertThat(exported).containsExactlyElementsOf(memberIds);
+        assertThat(chunkCalls.get()).isGreaterThan(MAX_BUFFERED_CHUNKS);
+    }
+
+    @DisplayName("조건은 chunk마다 그대로 적용된다")
+    @Test
+    void exportWithCondition() {
+        exporter = exporter(fromId -> false);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<MemberTeamDto> exported = new ArrayList<>();
+
+        exporter.export(condition, exported::add);
+
+        assertThat(exported).hasSize(MEMBERS / 2).allMatch(dto -> dto.getTeamName().equals("teamA"));
+        assertThat(exported).extracting("memberId").isSorted();
+    }
+
+    @DisplayName("sink가 느려도 미리 읽는 chunk는 max-buffered-chunks를 넘지 않는다")
+    @Test
+    void bufferingIsBounded() throws Exception {
+        exporter = exporter(fromId -> false);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Long> export = CompletableFuture.supplyAsync(() -> exporter.export(
+                new MemberSearchCondition(), dto -> {
+                    blocked.countDown();
+                    await(release);
+                }));
+
+        assertThat(blocked.await(10, TimeUnit.SECONDS)).isTrue();
+        // sink가 멈춘 동안 다른 chunk 조회가 시작될 시간을 준다
+        Thread.sleep(300);
+        assertThat(chunkCalls.get()).isLessThanOrEqualTo(MAX_BUFFERED_CHUNKS);
+
+        release.countDown();
+        assertThat(export.get(10, TimeUnit.SECONDS)).isEqualTo(MEMBERS);
+    }
+
+    @DisplayName("chunk 하나가 실패하면 예외를 던지고 남은 chunk는 요청하지 않는다")
+    @Test
+    void failureCancelsRemainingChunks() throws Exception {
+        long failingFrom = memberIds.get(0) + CHUNK_SIZE;
+        exporter = exporter(fromId -> fromId == failingFrom);
+        List<Long> exported = new ArrayList<>();
+
+        assertThatThrownBy(() -> exporter.export(new MemberSearchCondition(), dto -> exported.add(dto.getMemberId())))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("chunk failed");
+
+        int callsAtFailure = chunkCalls.get();
+        Thread.sleep(300);
+        assertThat(chunkCalls.get()).isEqualTo(callsAtFailure);
+        assertThat(callsAtFailure).isLessThan((int) Math.ceil((double) MEMBERS / CHUNK_SIZE));
+        assertThat(exported).isSorted().allMatch(id -> id < failingFrom);
+    }
+
+    private MemberExporter exporter(LongPredicate failOn) {
+        MemberRepository counting = (MemberRepository) Proxy.newProxyInstance(
+                MemberRepository.class.getClassLoader(),
+                new Class<?>[] { MemberRepository.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("searchByIdRange")) {
+                        chunkCalls.incrementAndGet();
+                        if (failOn.test((long) args[1])) {
+                            throw new IllegalStateException("chunk failed");
+                        }
+                    }
+                    try {
+                        return method.invoke(memberRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        return new MemberExporter(em, counting, transactionManager, PARALLELISM, CHUNK_SIZE, MAX_BUFFERED_CHUNKS);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
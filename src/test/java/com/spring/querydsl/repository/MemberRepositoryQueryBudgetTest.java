@@ -0,0 +1,118 @@
+package com.spring.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.support.EnableQueryBudget;
+import com.spring.querydsl.support.QueryBudget;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+@SpringBootTest
+@Transactional
+@EnableQueryBudget
+public class MemberRepositoryQueryBudgetTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        em.flush();
+        em.clear();
+    }
+
+    @QueryBudget(statements = 1, rows = 2, entities = 0)
+    @Test
+    void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member1", "member2");
+    }
+
+    @QueryBudget(statements = 1, entities = 0)
+    @Test
+    void searchPage_firstPageWithoutCount() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @QueryBudget(statements = 2, entities = 0)
+    @Test
+    void searchPage_withCount() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 3));
+
+        assertThat(result.getContent()).hasSize(3);
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @QueryBudget(statements = 1, entities = 1, collections = 0)
+    @Test
+    void findByUsername() {
+        List<Member> result = memberRepository.findByUsername("member1");
+
+        assertThat(result).extracting("age").containsExactly(10);
+    }
+
+    @QueryBudget(statements = 3, collections = 0)
+    @Test
+    void changeTeam_doesNotInitializeTeamMembers() {
+        Member member1 = memberRepository.findByUsername("member1").get(0);
+        Team teamB = memberRepository.findByUsername("member3").get(0).getTeam();
+
+        member1.changeTeam(teamB);
+        em.flush();
+
+        assertThat(member1.getTeam()).isSameAs(teamB);
+    }
+
+    @QueryBudget(statements = 4, collections = 0)
+    @Test
+    void changeTeam_bulk() {
+        Team teamB = memberRepository.findByUsername("member3").get(0).getTeam();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        long count = memberRepository.changeTeam(condition, teamB);
+
+        assertThat(count).isEqualTo(2);
+        condition.setTeamName("teamB");
+        assertThat(memberRepository.search(condition)).hasSize(4);
+    }
+
+}
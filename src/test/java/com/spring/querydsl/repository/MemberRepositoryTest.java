@@ -2,6 +2,7 @@ package com.spring.querydsl.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -30,6 +31,9 @@ public class MemberRepositoryTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
     @Test
     void basicTest() {
         Member member = new Member("member1");
@@ -72,4 +76,103 @@ public class MemberRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
+    @Test
+    public void searchFromIndexTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+
+        // 커밋 전 변경이 있는 트랜잭션에서는 인덱스가 아니라 DB에서 조회해야 자기 변경이 보인다
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        assertThat(memberSearchIndex.search(condition)).isEmpty();
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member4");
+
+        condition.setTeamName(null);
+        condition.setAgeGoe(null);
+        condition.setUsername("member2");
+        assertThat(memberRepository.search(condition)).extracting("teamName").containsExactly("teamA");
+    }
+
+    @Test
+    public void searchByIdRangeTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        List<MemberTeamDto> result = memberRepository.searchByIdRange(condition, member1.getId(), member3.getId());
+
+        assertThat(result).extracting("username").containsExactly("member2");
+    }
+
+    @Test
+    public void findTeamDtosByIdsTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Member member = new Member("member" + i, i, teamA);
+            em.persist(member);
+            ids.add(0, member.getId());
+        }
+        ids.add(1, -1L); // 없는 id는 제외
+
+        List<MemberTeamDto> result = memberRepository.findTeamDtosByIds(ids);
+
+        assertThat(result).hasSize(600);
+        assertThat(result).extracting("username").startsWith("member599", "member598");
+        assertThat(result).extracting("teamName").containsOnly("teamA");
+    }
+
+    @Test
+    public void changeTeamEvictsOnlyMovedTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        assertThat(memberRepository.changeTeam(condition, teamB)).isEqualTo(2);
+
+        // 이동한 회원만 분리되고 나머지는 관리 상태로 남는다
+        assertThat(em.contains(member1)).isFalse();
+        assertThat(em.contains(member2)).isFalse();
+        assertThat(em.contains(member3)).isTrue();
+        assertThat(em.contains(teamA)).isTrue();
+        assertThat(em.contains(teamB)).isTrue();
+
+        // 팀의 members 컬렉션과 다시 읽은 회원은 DB 상태를 따른다
+        assertThat(teamA.getMembers()).isEmpty();
+        assertThat(teamB.getMembers()).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3");
+        assertThat(em.find(Member.class, member1.getId()).getTeam()).isSameAs(teamB);
+    }
+
 }
@@ -0,0 +1,217 @@
+package com.spring.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MemberSearchCoalescerTest {
+
+    MemberSearchCoalescer coalescer = new MemberSearchCoalescer(null, null, null, 5_000);
+
+    @DisplayName("같은 키로 동시에 들어온 호출은 한 번만 실행")
+    @Test
+    void coalesceConcurrentCalls() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> coalescer.execute("teamA", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "result";
+            })));
+        }
+
+        // 첫 호출이 loader 안에서 대기하는 동안 나머지가 합류하도록 기다린다
+        while (coalescer.getCollapsedCalls() < callers - 1) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        executor.shutdown();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(coalescer.getExecutedCalls()).isEqualTo(1);
+    }
+
+    @DisplayName("실행이 끝난 뒤의 호출은 새로 실행, 예외는 그대로 전달")
+    @Test
+    void sequentialCallsAreNotShared() {
+        assertThat(coalescer.execute("k", () -> 1)).isEqualTo(1);
+        assertThat(coalescer.execute("k", () -> 2)).isEqualTo(2);
+
+        assertThatThrownBy(() -> coalescer.execute("k", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.getExecutedCalls()).isEqualTo(3);
+    }
+
+    @DisplayName("선행 호출이 Error로 끝나도 합류한 호출은 같은 Error를 받는다")
+    @Test
+    void errorIsPropagatedToFollowers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<Object> leader = executor.submit(() -> coalescer.execute("k", () -> {
+            await(release);
+            throw new StackOverflowError("boom");
+        }));
+        while (coalescer.getExecutedCalls() < 1) {
+            Thread.sleep(10);
+        }
+        Future<Object> follower = executor.submit(() -> coalescer.execute("k", () -> "never"));
+        while (coalescer.getCollapsedCalls() < 1) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(StackOverflowError.class);
+        executor.shutdown();
+    }
+
+    @DisplayName("쓰기 후 버전으로 들어온 호출은 이전 버전에서 시작된 실행에 합류하지 않는다")
+    @Test
+    void differentVersionsAreNotShared() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        PageRequest pageable = PageRequest.of(0, 20);
+        MemberSearchCoalescer.SearchKey beforeWrite = new MemberSearchCoalescer.SearchKey(condition, pageable,
+                new TableVersions.Snapshot(1, 1, 0));
+        MemberSearchCoalescer.SearchKey afterWrite = new MemberSearchCoalescer.SearchKey(condition, pageable,
+                new TableVersions.Snapshot(1, 3, 0));
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<String> leader = executor.submit(() -> coalescer.execute(beforeWrite, () -> {
+            await(release);
+            return "before write";
+        }));
+        while (coalescer.getExecutedCalls() < 1) {
+            Thread.sleep(10);
+        }
+
+        assertThat(coalescer.execute(afterWrite, () -> "after write")).isEqualTo("after write");
+        assertThat(coalescer.getCollapsedCalls()).isZero();
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("before write");
+        executor.shutdown();
+    }
+
+    @DisplayName("합류한 호출은 follower-timeout까지만 기다린다")
+    @Test
+    void followerWaitIsBounded() throws Exception {
+        MemberSearchCoalescer shortWait = new MemberSearchCoalescer(null, null, null, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<String> leader = executor.submit(() -> shortWait.execute("k", () -> {
+            await(release);
+            return "late";
+        }));
+        while (shortWait.getExecutedCalls() < 1) {
+            Thread.sleep(10);
+        }
+
+        assertThatThrownBy(() -> shortWait.execute("k", () -> "never")).isInstanceOf(QueryTimeoutException.class);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("late");
+        executor.shutdown();
+    }
+
+    @DisplayName("비동기 호출은 합류한 호출자가 모두 취소해야 실행이 취소된다")
+    @Test
+    void asyncCancelledOnlyWhenAllCallersLeave() {
+        CompletableFuture<String> work = new CompletableFuture<>();
+        AtomicInteger starts = new AtomicInteger();
+
+        CompletableFuture<String> first = coalescer.executeAsync("k", () -> {
+            starts.incrementAndGet();
+            return work;
+        });
+        CompletableFuture<String> second = coalescer.executeAsync("k", () -> {
+            starts.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        assertThat(starts.get()).isEqualTo(1);
+
+        first.cancel(true);
+        assertThat(work.isCancelled()).isFalse();
+
+        second.cancel(true);
+        assertThat(work.isCancelled()).isTrue();
+
+        // 취소된 실행에는 합류하지 않고 새로 시작
+        CompletableFuture<String> third = coalescer.executeAsync("k", () -> {
+            starts.incrementAndGet();
+            return CompletableFuture.completedFuture("fresh");
+        });
+        assertThat(third.join()).isEqualTo("fresh");
+        assertThat(starts.get()).isEqualTo(2);
+    }
+
+    @DisplayName("비동기 실행의 결과는 합류한 호출자 모두에게 전달")
+    @Test
+    void asyncResultShared() {
+        CompletableFuture<String> work = new CompletableFuture<>();
+        CompletableFuture<String> first = coalescer.executeAsync("k", () -> work);
+        CompletableFuture<String> second = coalescer.executeAsync("k", () -> work);
+
+        first.cancel(true);
+        work.complete("result");
+
+        assertThat(second.join()).isEqualTo("result");
+        assertThat(coalescer.getCollapsedCalls()).isEqualTo(1);
+    }
+
+    @DisplayName("실행/합류 호출 수와 진행 중인 실행 수를 지표로 노출")
+    @Test
+    void metrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        coalescer.bindTo(registry);
+
+        CompletableFuture<String> work = new CompletableFuture<>();
+        coalescer.executeAsync("k", () -> work);
+        coalescer.executeAsync("k", () -> work);
+        assertThat(registry.get("member.search.coalescer.running").gauge().value()).isEqualTo(1);
+
+        work.complete("result");
+        assertThat(registry.get("member.search.coalescer.calls").tag("result", "executed").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("member.search.coalescer.calls").tag("result", "collapsed").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("member.search.coalescer.running").gauge().value()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
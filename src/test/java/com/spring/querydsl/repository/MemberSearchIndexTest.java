@@ -0,0 +1,192 @@
+package com.spring.querydsl.repository;
+
+import static com.spring.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * 커밋된 엔티티 변경이 전체 재적재 없이 인덱스의 해당 행에만 반영되는지 확인한다.
+ * 기본 DB에만 JDBC로 넣은 회원은 전체 재적재 전까지 인덱스에 보이지 않는 것으로 재적재 여부를 구분한다.
+ */
+@SpringBootTest
+public class MemberSearchIndexTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchIndex memberSearchIndex;
+
+    @Autowired
+    MemberChangeTracker memberChangeTracker;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+        // 기본 DB에만 있는 회원
+        jdbcTemplate.update("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)",
+                900_000_001L, "jdbcOnly", 50, teamBId);
+    }
+
+    @AfterEach
+    void after() {
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+        jdbcTemplate.update("delete from team_age_stats");
+        memberChangeTracker.reloadAll();
+    }
+
+    @DisplayName("회원/팀 변경은 커밋 후 바뀐 행만 반영된다")
+    @Test
+    void entityChanges() {
+        tx.executeWithoutResult(status -> {
+            Member member1 = memberRepository.findByUsername("member1").get(0);
+            member1.changeTeam(em.find(Team.class, teamBId));
+            member1.setAge(41);
+            em.remove(memberRepository.findByUsername("member2").get(0));
+            em.find(Team.class, teamAId).setName("teamC");
+            em.persist(new Member("member5", 50, em.find(Team.class, teamAId)));
+        });
+
+        assertThat(indexSearch(teamName("teamB"))).extracting("username", "age")
+                .containsExactly(tuple("member1", 41), tuple("member3", 30), tuple("member4", 40));
+        assertThat(indexSearch(teamName("teamA"))).isEmpty();
+        assertThat(indexSearch(teamName("teamC"))).extracting("username").containsExactly("member5");
+        assertThat(indexSearch(username("member2"))).isEmpty();
+        assertThat(indexSearch(age(40, 41))).extracting("username").containsExactly("member1", "member4");
+        assertThat(indexSearch(username("jdbcOnly"))).isEmpty();
+    }
+
+    @DisplayName("대상 id를 알려 주는 changeTeam은 이동한 회원만 반영한다")
+    @Test
+    void scopedBulkChange() {
+        tx.executeWithoutResult(status -> memberRepository.changeTeam(teamName("teamA"), em.find(Team.class, teamBId)));
+
+        assertThat(indexSearch(teamName("teamB"))).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4");
+        assertThat(indexSearch(username("jdbcOnly"))).isEmpty();
+    }
+
+    @DisplayName("범위를 알 수 없는 벌크 변경은 커밋 후 전체를 다시 적재한다")
+    @Test
+    void unscopedBulkChange() {
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        assertThat(indexSearch(username("member1"))).extracting("age").containsExactly(11);
+        assertThat(indexSearch(username("jdbcOnly"))).extracting("age").containsExactly(51);
+    }
+
+    @DisplayName("커밋 전 변경이 있는 트랜잭션과 롤백")
+    @Test
+    void uncommittedAndRollback() {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("rolledBack", 60, em.find(Team.class, teamAId)));
+            em.flush();
+
+            // 자기 변경이 보이도록 DB로 fallback
+            assertThat(memberSearchIndex.search(username("rolledBack"))).isEmpty();
+            assertThat(memberRepository.search(username("rolledBack"))).hasSize(1);
+            status.setRollbackOnly();
+        });
+
+        assertThat(indexSearch(username("rolledBack"))).isEmpty();
+    }
+
+    @DisplayName("페이지 조회도 인덱스에서 member_id 순으로 offset/limit과 전체 개수를 만든다")
+    @Test
+    void searchPage() {
+        memberChangeTracker.awaitSync();
+
+        Page<MemberTeamDto> page = memberSearchIndex.searchPage(age(20, 45), PageRequest.of(1, 2)).orElseThrow();
+        assertThat(page.getContent()).extracting("username").containsExactly("member4");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+
+        // 인덱스를 거치는 repository 조회와 DB 조회가 같은 페이지를 돌려준다
+        assertThat(memberRepository.searchPage(age(20, 45), PageRequest.of(1, 2))).isEqualTo(page);
+        Page<MemberTeamDto> fromDb = tx.execute(status -> {
+            em.persist(new Member("uncommitted", 99, null));
+            em.flush();
+            Page<MemberTeamDto> result = memberRepository.searchPage(age(20, 45), PageRequest.of(1, 2));
+            status.setRollbackOnly();
+            return result;
+        });
+        assertThat(fromDb.getContent()).isEqualTo(page.getContent());
+        assertThat(fromDb.getTotalElements()).isEqualTo(3);
+    }
+
+    private List<MemberTeamDto> indexSearch(MemberSearchCondition condition) {
+        memberChangeTracker.awaitSync();
+        return memberSearchIndex.search(condition).orElseThrow();
+    }
+
+    private static MemberSearchCondition username(String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+
+    private static MemberSearchCondition teamName(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+
+    private static MemberSearchCondition age(int ageGoe, int ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -0,0 +1,55 @@
+package com.spring.querydsl.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+
+public class ShardedMemberStoreTest {
+
+    ShardedMemberStore store;
+
+    @BeforeEach
+    void before() {
+        store = new ShardedMemberStore(new DriverManagerDataSource("jdbc:h2:mem:shard_primary"), 3,
+                "jdbc:h2:mem:shard_test_%d");
+        store.saveTeam(1, "teamA");
+        store.saveTeam(2, "teamB");
+        store.saveTeam(3, "teamC");
+
+        // member_id가 샤드를 번갈아 가도록 배치
+        for (long id = 1; id <= 9; id++) {
+            store.saveMember(id, "member" + id, (int) id * 10, (id - 1) % 3 + 1);
+        }
+        store.saveMember(10, "member10", 100, null);
+    }
+
+    @AfterEach
+    void after() {
+        store.close();
+    }
+
+    @Test
+    void scatterGatherPage() {
+        Page<MemberTeamDto> page = store.searchPage(new MemberSearchCondition(), PageRequest.of(1, 4));
+
+        assertThat(page.getContent()).extracting("memberId").containsExactly(5L, 6L, 7L, 8L);
+        assertThat(page.getTotalElements()).isEqualTo(10);
+    }
+
+    @Test
+    void routeByTeamName() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(30);
+
+        assertThat(store.search(condition)).extracting("username").containsExactly("member5", "member8");
+    }
+}
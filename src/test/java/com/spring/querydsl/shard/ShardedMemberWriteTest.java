@@ -0,0 +1,165 @@
+package com.spring.querydsl.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.dto.MemberTeamDto;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.repository.MemberRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * 샤딩 모드에서 JPA로 쓴 변경이 커밋 후 샤드에 반영되는지 확인한다.
+ * 반영은 별도 스레드에서 일어나므로 awaitSync() 후 샤드를 직접 조회한다.
+ */
+@SpringBootTest(properties = {
+        "member.sharding.enabled=true",
+        "member.sharding.shards=3",
+        "member.sharding.url-pattern=jdbc:h2:mem:member_write_shard_%d;DB_CLOSE_DELAY=-1" })
+public class ShardedMemberWriteTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    ShardedMemberStore shardedMemberStore;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+        jdbcTemplate.update("delete from team_age_stats");
+        shardedMemberStore.resync();
+    }
+
+    @DisplayName("JPA로 저장한 회원은 커밋 후 샤드 조회에 보인다")
+    @Test
+    void persist() {
+        tx.executeWithoutResult(status -> em.persist(new Member("member4", 40, em.find(Team.class, teamBId))));
+
+        List<MemberTeamDto> result = shardSearch(username("member4"));
+        assertThat(result).extracting("teamName").containsExactly("teamB");
+    }
+
+    @DisplayName("팀이 바뀐 회원은 이전 팀 샤드에서 빠진다")
+    @Test
+    void changeTeam() {
+        tx.executeWithoutResult(status -> {
+            Member member1 = memberRepository.findByUsername("member1").get(0);
+            member1.changeTeam(em.find(Team.class, teamBId));
+            member1.setAge(11);
+        });
+
+        assertThat(shardSearch(teamName("teamA"))).extracting("username").containsExactly("member2");
+        assertThat(shardSearch(teamName("teamB"))).extracting("username", "age")
+                .contains(tuple("member1", 11));
+    }
+
+    @DisplayName("삭제와 롤백")
+    @Test
+    void deleteAndRollback() {
+        tx.executeWithoutResult(status -> em.remove(memberRepository.findByUsername("member2").get(0)));
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("rolledBack", 50, em.find(Team.class, teamAId)));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(shardSearch(username("member2"))).isEmpty();
+        assertThat(shardSearch(username("rolledBack"))).isEmpty();
+    }
+
+    @DisplayName("벌크 팀 이동은 커밋 후 샤드 전체를 다시 맞춘다")
+    @Test
+    void bulkChangeTeam() {
+        tx.executeWithoutResult(status -> memberRepository.changeTeam(teamName("teamA"), em.find(Team.class, teamBId)));
+
+        assertThat(shardSearch(teamName("teamA"))).isEmpty();
+        assertThat(shardSearch(teamName("teamB"))).extracting("username")
+                .containsExactly("member1", "member2", "member3");
+        assertThat(shardSearch(username("jdbcOnly"))).isEmpty();
+    }
+
+    @DisplayName("반영되지 않은 변경이 있는 동안 조회는 기본 DB로 돌아간다")
+    @Test
+    void readsFallBackWhilePending() {
+        shardedMemberStore.awaitSync();
+        assertThat(shardedMemberStore.isCurrent()).isTrue();
+
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member4", 40, em.find(Team.class, teamBId)));
+            em.flush();
+
+            assertThat(shardedMemberStore.isCurrent()).isFalse();
+        });
+
+        // 커밋 직후 샤드 반영 전이어도 기본 DB에서 보인다
+        assertThat(memberRepository.search(username("member4"))).hasSize(1);
+        shardedMemberStore.awaitSync();
+        assertThat(shardedMemberStore.isCurrent()).isTrue();
+    }
+
+    private List<MemberTeamDto> shardSearch(MemberSearchCondition condition) {
+        shardedMemberStore.awaitSync();
+        assertThat(shardedMemberStore.isCurrent()).isTrue();
+        return shardedMemberStore.search(condition);
+    }
+
+    private static MemberSearchCondition username(String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+
+    private static MemberSearchCondition teamName(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
@@ -0,0 +1,208 @@
+package com.spring.querydsl.stats;
+
+import static com.spring.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.spring.querydsl.dto.MemberSearchCondition;
+import com.spring.querydsl.entity.Member;
+import com.spring.querydsl.entity.QTeamAgeStats;
+import com.spring.querydsl.entity.Team;
+import com.spring.querydsl.entity.TeamAgeStats;
+import com.spring.querydsl.repository.MemberRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * 집계는 커밋 직전에 반영되므로 @Transactional 대신 TransactionTemplate으로 커밋하고 직접 정리한다.
+ */
+@SpringBootTest
+public class TeamAgeStatsTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    void after() {
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+        jdbcTemplate.update("delete from team_age_stats");
+    }
+
+    @DisplayName("insert/update/delete가 커밋되면 팀 집계가 갱신된다")
+    @Test
+    void incrementalUpdate() {
+        assertStats(teamAId, 2, 30, 10, 20);
+        assertStats(teamBId, 2, 70, 30, 40);
+
+        tx.executeWithoutResult(status -> {
+            Member member1 = memberRepository.findByUsername("member1").get(0);
+            member1.setAge(15);
+            em.persist(new Member("member5", 50, em.find(Team.class, teamAId)));
+            em.remove(memberRepository.findByUsername("member4").get(0));
+        });
+
+        assertStats(teamAId, 3, 85, 15, 50);
+        assertStats(teamBId, 1, 30, 30, 30);
+    }
+
+    @DisplayName("롤백되면 반영되지 않는다")
+    @Test
+    void rollback() {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member5", 50, em.find(Team.class, teamAId)));
+            status.setRollbackOnly();
+        });
+
+        assertStats(teamAId, 2, 30, 10, 20);
+    }
+
+    @DisplayName("벌크 팀 이동 후 관련 팀을 다시 집계한다")
+    @Test
+    void bulkChangeTeam() {
+        tx.executeWithoutResult(status -> {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamA");
+            memberRepository.changeTeam(condition, em.find(Team.class, teamBId));
+        });
+
+        assertStats(teamAId, 0, 0, null, null);
+        assertStats(teamBId, 4, 100, 10, 40);
+    }
+
+    @DisplayName("팀을 null로 벌크 이동하면 팀에서 빠진다")
+    @Test
+    void bulkChangeTeamToNull() {
+        tx.executeWithoutResult(status -> {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamA");
+            memberRepository.changeTeam(condition, null);
+        });
+
+        assertStats(teamAId, 0, 0, null, null);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member where team_id is null", Long.class))
+                .isEqualTo(2);
+    }
+
+    @DisplayName("최소 나이 회원 삭제와 다른 트랜잭션의 추가가 동시에 커밋돼도 집계가 맞다")
+    @Test
+    void concurrentCommits() throws Exception {
+        // 다른 트랜잭션: 회원을 추가하고 커밋 직전처럼 증분까지 반영해 집계 행을 잠근 상태로 둔다
+        Connection other = dataSource.getConnection();
+        other.setAutoCommit(false);
+        try (PreparedStatement insert = other.prepareStatement(
+                "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)");
+                PreparedStatement apply = other.prepareStatement(TeamAgeStatsSql.APPLY_DELTA)) {
+            insert.setLong(1, 900_000_001L);
+            insert.setString(2, "member5");
+            insert.setInt(3, 5);
+            insert.setLong(4, teamAId);
+            insert.executeUpdate();
+
+            apply.setLong(1, teamAId);
+            apply.setLong(2, 1);
+            apply.setLong(3, 5);
+            apply.setInt(4, 5);
+            apply.setInt(5, 5);
+            apply.executeUpdate();
+        }
+
+        // 이 트랜잭션은 최소 나이(10) 회원을 지우므로 집계 행을 잠그고 최소/최대를 다시 구해야 한다
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> removal = executor.submit(() -> tx.executeWithoutResult(
+                status -> em.remove(memberRepository.findByUsername("member1").get(0))));
+        Thread.sleep(300);
+        other.commit();
+        other.close();
+        removal.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertStats(teamAId, 2, 25, 5, 20);
+    }
+
+    @DisplayName("팀 평균보다 나이가 많은 회원을 집계 테이블 조인으로 조회")
+    @Test
+    void ageGtTeamAvg() {
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+        QTeamAgeStats stats = QTeamAgeStats.teamAgeStats;
+
+        List<Member> result = tx.execute(status -> TeamAgeStatsExpressions
+                .joinTeamAgeStats(queryFactory.selectFrom(member), member, stats)
+                .where(TeamAgeStatsExpressions.ageGtTeamAvg(member, stats))
+                .orderBy(member.age.asc())
+                .fetch());
+
+        assertThat(result).extracting("username").containsExactly("member2", "member4");
+
+        List<Member> bySubQuery = tx.execute(status -> queryFactory
+                .selectFrom(member)
+                .where(TeamAgeStatsExpressions.ageGtTeamAvg(member))
+                .orderBy(member.age.asc())
+                .fetch());
+
+        assertThat(bySubQuery).extracting("username").containsExactly("member2", "member4");
+    }
+
+    private void assertStats(Long teamId, long count, long sum, Integer min, Integer max) {
+        TeamAgeStats stats = tx.execute(status -> em.find(TeamAgeStats.class, teamId));
+        assertThat(stats.getMemberCount()).isEqualTo(count);
+        assertThat(stats.getAgeSum()).isEqualTo(sum);
+        assertThat(stats.getAgeMin()).isEqualTo(min);
+        assertThat(stats.getAgeMax()).isEqualTo(max);
+    }
+}
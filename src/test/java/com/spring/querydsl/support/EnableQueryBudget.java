@@ -0,0 +1,23 @@
+package com.spring.querydsl.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * {@link QueryBudget}을 검사하는 확장과 SQL 수집 설정을 등록한다.
+ * 예산은 @BeforeEach 이후 테스트 본문에서 실행된 쿼리만 센다.
+ * 검색 인덱스의 주기적 재적재가 통계에 섞이지 않도록 인덱스를 끈다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+@Import(QueryBudgetConfiguration.class)
+@TestPropertySource(properties = "member.index.enabled=false")
+public @interface EnableQueryBudget {
+}
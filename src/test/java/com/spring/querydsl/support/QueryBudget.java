@@ -0,0 +1,27 @@
+package com.spring.querydsl.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 한 번에 허용하는 쿼리 예산. 음수는 제한 없음.
+ * {@link EnableQueryBudget}이 붙은 테스트 클래스에서만 검사된다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    // 테스트 스레드에서 실행된 JDBC statement 수
+    int statements();
+
+    // 테스트 스레드에서 ResultSet으로 읽은 row 수 (count 쿼리 결과도 1 row)
+    long rows() default -1;
+
+    // 로딩된 엔티티 수
+    long entities() default -1;
+
+    // 초기화된 컬렉션 수
+    long collections() default -1;
+}
@@ -0,0 +1,82 @@
+package com.spring.querydsl.support;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+/**
+ * 테스트 스레드에서 실행된 SQL과 읽은 row만 수집한다.
+ * 스케줄러 등 다른 스레드의 쿼리가 섞이면 예산 검사가 실행 시점에 따라 달라지기 때문이다.
+ */
+@TestConfiguration
+public class QueryBudgetConfiguration {
+
+    private static final List<String> executed = new ArrayList<>();
+    private static long rows;
+    // 수집 대상 스레드, reset에서 정한다
+    private static volatile long threadId = -1;
+
+    @Bean
+    public HibernatePropertiesCustomizer statisticsCustomizer() {
+        return properties -> properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+    }
+
+    // p6spy starter가 JdbcEventListener 빈을 등록해 준다
+    @Bean
+    public SimpleJdbcEventListener sqlCaptureListener() {
+        return new SimpleJdbcEventListener() {
+            @Override
+            public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos,
+                    SQLException e) {
+                if (isTestThread()) {
+                    synchronized (executed) {
+                        executed.add(statementInformation.getSqlWithValues());
+                    }
+                }
+            }
+
+            @Override
+            public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                    boolean hasNext, SQLException e) {
+                if (hasNext && isTestThread()) {
+                    synchronized (executed) {
+                        rows++;
+                    }
+                }
+            }
+        };
+    }
+
+    private static boolean isTestThread() {
+        return Thread.currentThread().getId() == threadId;
+    }
+
+    static void reset(Thread testThread) {
+        synchronized (executed) {
+            executed.clear();
+            rows = 0;
+        }
+        threadId = testThread.getId();
+    }
+
+    static List<String> executed() {
+        synchronized (executed) {
+            return List.copyOf(executed);
+        }
+    }
+
+    static long rows() {
+        synchronized (executed) {
+            return rows;
+        }
+    }
+}
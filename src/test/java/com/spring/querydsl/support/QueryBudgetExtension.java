@@ -0,0 +1,80 @@
+package com.spring.querydsl.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * 테스트 본문 실행 전후로 Hibernate Statistics와 p6spy로 수집한 SQL을 비교해
+ * {@link QueryBudget}을 넘으면 실행된 SQL 목록과 함께 실패시킨다.
+ * <p>
+ * 본문 직후(AfterTestExecution)에 검사하므로 @Transactional 롤백 등 정리 작업은 세지 않는다.
+ * statements/rows는 테스트 스레드에서 실행된 것만 센다. entities/collections는 SessionFactory 전체 통계이므로
+ * 백그라운드 작업이 엔티티를 읽지 않도록 {@link EnableQueryBudget}이 검색 인덱스를 끈다.
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (budget(context) == null) {
+            return;
+        }
+        statistics(context).clear();
+        QueryBudgetConfiguration.reset(Thread.currentThread());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = budget(context);
+        if (budget == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        Statistics statistics = statistics(context);
+        List<String> executed = QueryBudgetConfiguration.executed();
+        long rows = QueryBudgetConfiguration.rows();
+        long entities = statistics.getEntityLoadCount() + statistics.getEntityFetchCount();
+        long collections = statistics.getCollectionLoadCount() + statistics.getCollectionFetchCount();
+
+        List<String> violations = new ArrayList<>();
+        check(violations, "statements", executed.size(), budget.statements());
+        check(violations, "rows", rows, budget.rows());
+        check(violations, "entities", entities, budget.entities());
+        check(violations, "collections", collections, budget.collections());
+
+        if (!violations.isEmpty()) {
+            StringBuilder message = new StringBuilder("query budget exceeded: ")
+                    .append(String.join(", ", violations))
+                    .append(System.lineSeparator());
+            for (int i = 0; i < executed.size(); i++) {
+                message.append("  ").append(i + 1).append(") ").append(executed.get(i)).append(System.lineSeparator());
+            }
+            throw new AssertionError(message.toString());
+        }
+    }
+
+    private static void check(List<String> violations, String name, long actual, long budget) {
+        if (budget >= 0 && actual > budget) {
+            violations.add(name + " " + actual + " > " + budget);
+        }
+    }
+
+    private static QueryBudget budget(ExtensionContext context) {
+        return context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+    }
+
+    private static Statistics statistics(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context)
+                .getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+    }
+}